@@ -3,36 +3,402 @@ package seamcarving;
 import edu.princeton.cs.algs4.Picture;
 
 import java.awt.Color;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 
 public class AStarSeamCarver implements SeamCarver {
-    private Picture picture;
+    // the pixels of the current image as packed ARGB ints, one array per row
+    // rows may be longer than width() once vertical seams have been removed
+    private int[][] rows;
+    private int width;
+    private int height;
+
+    // incremented every time the image changes, reported by snapshots
+    private long version;
+
+    // copy-on-write bookkeeping for snapshots:
+    // a row is shared with a snapshot iff its generation is at most snapshotGeneration,
+    // and the rows table itself is shared iff tableShared is set
+    private long[] rowGeneration;
+    private long generation;
+    private long snapshotGeneration;
+    private boolean tableShared;
+    private final ArrayList<PictureSnapshot> liveSnapshots = new ArrayList<>();
+    // row arrays that neither the image nor any live snapshot uses, reused for copies
+    private final ArrayDeque<int[]> spareRows = new ArrayDeque<>();
+
+    // checked every CANCELLATION_BLOCK rows (or columns) while searching for a seam,
+    // only set while carveTo is running
+    private static final int CANCELLATION_BLOCK = 32;
+    private CancellationToken cancellation;
+
+    // how many average seams' worth of time before the deadline carveTo switches to scaling
+    private static final double SCALE_SAFETY_FACTOR = 2;
 
     public AStarSeamCarver(Picture picture) {
         if (picture == null) {
             throw new NullPointerException("Picture cannot be null.");
         }
-        this.picture = new Picture(picture);
+        generation = 1;
+        snapshotGeneration = 0;
+        load(picture);
+    }
+
+    /** Creates a carver from a copy of the given pixels, without going through a Picture. */
+    public AStarSeamCarver(PixelBuffer pixels) {
+        if (pixels == null) {
+            throw new NullPointerException("Pixels cannot be null.");
+        }
+        generation = 1;
+        snapshotGeneration = 0;
+        int[][] loaded = new int[pixels.height()][pixels.width()];
+        int[] data = pixels.data();
+        for (int y = 0; y < loaded.length; y++) {
+            System.arraycopy(data, y * pixels.width(), loaded[y], 0, pixels.width());
+        }
+        load(loaded, pixels.width(), pixels.height());
     }
 
     public Picture picture() {
-        return new Picture(picture);
+        // Picture is mutable, so callers get their own copy
+        Picture copy = new Picture(width, height);
+        for (int y = 0; y < height; y++) {
+            int[] row = rows[y];
+            for (int x = 0; x < width; x++) {
+                copy.setRGB(x, y, row[x]);
+            }
+        }
+        return copy;
     }
 
     public void setPicture(Picture picture) {
-        this.picture = picture;
+        if (picture == null) {
+            throw new NullPointerException("Picture cannot be null.");
+        }
+        load(picture);
+    }
+
+    /** Returns a copy of the current image as a PixelBuffer. */
+    public PixelBuffer pixels() {
+        PixelBuffer pixels = new PixelBuffer(width, height);
+        int[] data = pixels.data();
+        for (int y = 0; y < height; y++) {
+            System.arraycopy(rows[y], 0, data, y * width, width);
+        }
+        return pixels;
+    }
+
+    /**
+     * Returns an immutable view of the current image in O(1) time. Later changes
+     * to this carver are not visible through the snapshot.
+     */
+    public PictureSnapshot snapshot() {
+        snapshotGeneration = generation;
+        generation++;
+        tableShared = true;
+        PictureSnapshot snapshot = new PictureSnapshot(this, rows, width, height, version);
+        liveSnapshots.add(snapshot);
+        return snapshot;
+    }
+
+    /** Returns the version of the current image, which increases whenever it changes. */
+    public long version() {
+        return version;
     }
 
     public int width() {
-        return picture.width();
+        return width;
     }
 
     public int height() {
-        return picture.height();
+        return height;
     }
 
     public Color get(int x, int y) {
-        return picture.get(x, y);
+        return new Color(getRGB(x, y));
+    }
+
+    /** Returns the color of pixel (x, y) in the current image as a packed ARGB int. */
+    public int getRGB(int x, int y) {
+        if (x < 0 || x > width - 1) {
+            throw new IllegalArgumentException("x out of bounds");
+        }
+        if (y < 0 || y > height - 1) {
+            throw new IllegalArgumentException("y out of bounds");
+        }
+        return rows[y][x];
+    }
+
+    @Override
+    public void removeHorizontalSeam(int[] seam) {
+        validateSeam(seam, width, height, "Image height is 1.",
+                "Seam length does not match image width.",
+                "Invalid seam, consecutive vertical indices are greater than one apart.");
+
+        // find the highest row the seam passes through, the rows above it don't change
+        int top = height;
+        for (int y : seam) {
+            top = Math.min(top, y);
+        }
+
+        // shift every pixel below the seam in its column up by one
+        for (int y = top; y < height - 1; y++) {
+            int[] row = writableRow(y);
+            int[] below = rows[y + 1];
+            for (int x = 0; x < width; x++) {
+                if (seam[x] <= y) {
+                    row[x] = below[x];
+                }
+            }
+        }
+
+        height--;
+        version++;
+    }
+
+    @Override
+    public void removeVerticalSeam(int[] seam) {
+        validateSeam(seam, height, width, "Image width is 1.",
+                "Seam length does not match image height.",
+                "Invalid seam, consecutive horizontal indices are greater than one apart.");
+
+        // shift every pixel right of the seam in its row left by one
+        for (int y = 0; y < height; y++) {
+            int[] row = writableRow(y);
+            System.arraycopy(row, seam[y] + 1, row, seam[y], width - seam[y] - 1);
+        }
+
+        width--;
+        version++;
+    }
+
+    /**
+     * Returns the current row y for reading. The array may be longer than width()
+     * and must not be modified.
+     */
+    int[] row(int y) {
+        return rows[y];
+    }
+
+    /**
+     * Returns the dual-gradient energy of a pixel given the packed colors of its
+     * left, right, upper and lower neighbors. Computes exactly the same value as
+     * SeamCarver.energy, using integer arithmetic for the squared differences.
+     */
+    static double dualGradient(int left, int right, int up, int down) {
+        int xRed = ((left >> 16) & 0xFF) - ((right >> 16) & 0xFF);
+        int xGreen = ((left >> 8) & 0xFF) - ((right >> 8) & 0xFF);
+        int xBlue = (left & 0xFF) - (right & 0xFF);
+        int yRed = ((up >> 16) & 0xFF) - ((down >> 16) & 0xFF);
+        int yGreen = ((up >> 8) & 0xFF) - ((down >> 8) & 0xFF);
+        int yBlue = (up & 0xFF) - (down & 0xFF);
+        return Math.sqrt(xRed * xRed + xGreen * xGreen + xBlue * xBlue
+                + yRed * yRed + yGreen * yGreen + yBlue * yBlue);
+    }
+
+    /**
+     * Removes seams until the image is targetWidth by targetHeight, checking the token
+     * between seams and while searching for each one. If the token stops the carve
+     * early the image keeps the seams removed so far, unless scaleRemainder is set and
+     * the deadline (rather than cancel()) stopped it, in which case the rest of the
+     * reduction is done by plain scaling. With scaleRemainder, carving also switches to
+     * scaling as soon as the next seam is unlikely to finish before the deadline.
+     */
+    public CarveResult carveTo(int targetWidth, int targetHeight, CancellationToken token,
+                               boolean scaleRemainder) {
+        if (token == null) {
+            throw new NullPointerException("Cancellation token cannot be null.");
+        }
+        if (targetWidth < 1 || targetWidth > width || targetHeight < 1 || targetHeight > height) {
+            throw new IllegalArgumentException("Target size " + targetWidth + "x" + targetHeight
+                    + " is not within the current size " + width + "x" + height + ".");
+        }
+
+        long start = System.nanoTime();
+        int vertical = 0;
+        int horizontal = 0;
+        CarveResult.Outcome outcome = CarveResult.Outcome.COMPLETED;
+        cancellation = token;
+        try {
+            while (width > targetWidth || height > targetHeight) {
+                if (token.isCancelled()) {
+                    throw new CarveCancelledException();
+                }
+                // stop early if the average seam so far would run past the deadline
+                int done = vertical + horizontal;
+                if (scaleRemainder && done > 0
+                        && token.remainingNanos() < SCALE_SAFETY_FACTOR * (System.nanoTime() - start) / done) {
+                    throw new CarveCancelledException();
+                }
+
+                // remove a seam from whichever dimension has further to go
+                if (width - targetWidth >= height - targetHeight) {
+                    removeVerticalSeam(findVerticalSeam());
+                    vertical++;
+                } else {
+                    removeHorizontalSeam(findHorizontalSeam());
+                    horizontal++;
+                }
+            }
+        } catch (CarveCancelledException e) {
+            outcome = token.cancelRequested() ? CarveResult.Outcome.CANCELLED : CarveResult.Outcome.TIMEOUT;
+        } finally {
+            cancellation = null;
+        }
+
+        boolean scaled = false;
+        if (outcome == CarveResult.Outcome.TIMEOUT && scaleRemainder) {
+            setPicture(scaled(targetWidth, targetHeight));
+            scaled = true;
+        }
+        return new CarveResult(picture(), outcome, vertical, horizontal, scaled,
+                               (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Called by seam searches on each row (or column) they process, and stops the
+     * search if carveTo's token says so.
+     */
+    void checkCancellation(int line) {
+        if (cancellation != null && line % CANCELLATION_BLOCK == 0 && cancellation.isCancelled()) {
+            throw new CarveCancelledException();
+        }
+    }
+
+    /** Thrown from a seam search to abandon it when carveTo's token is cancelled. */
+    private static class CarveCancelledException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        CarveCancelledException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /** Returns the current image bilinearly scaled to the given size. */
+    private Picture scaled(int targetWidth, int targetHeight) {
+        Picture result = new Picture(targetWidth, targetHeight);
+        double xRatio = targetWidth > 1 ? (double) (width - 1) / (targetWidth - 1) : 0;
+        double yRatio = targetHeight > 1 ? (double) (height - 1) / (targetHeight - 1) : 0;
+        for (int y = 0; y < targetHeight; y++) {
+            double sy = y * yRatio;
+            int y0 = (int) sy;
+            int y1 = Math.min(y0 + 1, height - 1);
+            double fy = sy - y0;
+            for (int x = 0; x < targetWidth; x++) {
+                double sx = x * xRatio;
+                int x0 = (int) sx;
+                int x1 = Math.min(x0 + 1, width - 1);
+                double fx = sx - x0;
+
+                int rgb = 0;
+                for (int shift = 0; shift <= 24; shift += 8) {
+                    double top = channel(rows[y0][x0], shift) * (1 - fx) + channel(rows[y0][x1], shift) * fx;
+                    double bottom = channel(rows[y1][x0], shift) * (1 - fx) + channel(rows[y1][x1], shift) * fx;
+                    int value = (int) Math.round(top * (1 - fy) + bottom * fy);
+                    rgb |= value << shift;
+                }
+                result.setRGB(x, y, rgb);
+            }
+        }
+        return result;
+    }
+
+    private static int channel(int rgb, int shift) {
+        return (rgb >>> shift) & 0xFF;
+    }
+
+    /** Called by a snapshot of this carver when it is closed. */
+    void release(PictureSnapshot snapshot) {
+        liveSnapshots.remove(snapshot);
+        // the rows the image has replaced since are garbage unless another snapshot still shares them
+        int[][] released = snapshot.rows();
+        for (int y = 0; y < released.length && spareRows.size() < rows.length; y++) {
+            if (!inUse(released[y], y)) {
+                spareRows.add(released[y]);
+            }
+        }
+    }
+
+    /** Returns true iff row y of the image or of a live snapshot is the given array. */
+    private boolean inUse(int[] row, int y) {
+        if (y < rows.length && rows[y] == row) {
+            return true;
+        }
+        for (PictureSnapshot live : liveSnapshots) {
+            int[][] shared = live.rows();
+            if (y < shared.length && shared[y] == row) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void load(Picture picture) {
+        int[][] loaded = new int[picture.height()][picture.width()];
+        for (int y = 0; y < loaded.length; y++) {
+            int[] row = loaded[y];
+            for (int x = 0; x < row.length; x++) {
+                row[x] = picture.getRGB(x, y);
+            }
+        }
+        load(loaded, picture.width(), picture.height());
+    }
+
+    private void load(int[][] loaded, int width, int height) {
+        this.rows = loaded;
+        this.width = width;
+        this.height = height;
+
+        // the new rows are owned by this carver, whatever snapshots are still open
+        rowGeneration = new long[height];
+        Arrays.fill(rowGeneration, generation);
+        tableShared = false;
+        spareRows.clear();
+        version++;
+    }
+
+    /**
+     * Returns row y ready to be modified, first copying it (and the rows table)
+     * if a live snapshot may still be reading it. The copy goes into a spare row
+     * when there is one long enough.
+     */
+    private int[] writableRow(int y) {
+        if (!liveSnapshots.isEmpty() && rowGeneration[y] <= snapshotGeneration) {
+            if (tableShared) {
+                rows = rows.clone();
+                tableShared = false;
+            }
+            int[] copy = spareRows.poll();
+            if (copy == null || copy.length < width) {
+                copy = new int[width];
+            }
+            System.arraycopy(rows[y], 0, copy, 0, width);
+            rows[y] = copy;
+            rowGeneration[y] = generation;
+        }
+        return rows[y];
+    }
+
+    private static void validateSeam(int[] seam, int length, int across, String tooSmall,
+                                     String wrongLength, String notConnected) {
+        if (seam == null) {
+            throw new NullPointerException("Input seam array cannot be null.");
+        } else if (across == 1) {
+            throw new IllegalArgumentException(tooSmall);
+        } else if (seam.length != length) {
+            throw new IllegalArgumentException(wrongLength);
+        }
+
+        for (int i = 0; i < seam.length; i++) {
+            if (seam[i] < 0 || seam[i] > across - 1) {
+                throw new IllegalArgumentException("Invalid seam, index " + seam[i] + " is out of bounds.");
+            }
+            if (i < seam.length - 1 && Math.abs(seam[i] - seam[i + 1]) > 1) {
+                throw new IllegalArgumentException(notConnected);
+            }
+        }
     }
 
     public int[] findHorizontalSeam() {
@@ -41,6 +407,7 @@ public class AStarSeamCarver implements SeamCarver {
 
         // iterate over the columns of pixels in the image
         for (int x = 0; x < width(); x++) {
+            checkCancellation(x);
             // and store the vertices at (x, y) such that y -> vertex(x, y)
             HashMap<Integer, Vertex> yMap = new HashMap<>();
             for (int y = 0; y < height(); y++) {
@@ -95,6 +462,7 @@ public class AStarSeamCarver implements SeamCarver {
 
         // iterate over the rows of pixels in the image
         for (int y = 0; y < height(); y++) {
+            checkCancellation(y);
             // and store the vertices at (x, y) such that x -> vertex(x, y)
             HashMap<Integer, Vertex> xMap = new HashMap<>();
             for (int x = 0; x < width(); x++) {
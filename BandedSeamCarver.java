@@ -0,0 +1,467 @@
+package seamcarving;
+
+import edu.princeton.cs.algs4.Picture;
+
+import java.util.Arrays;
+
+/**
+ * A seam carver that, when carving several seams in a row, first looks for the
+ * next seam in a band around the seam that was just removed, since consecutive
+ * seams tend to lie close to each other.
+ *
+ * In EXACT mode the in-band seam is only returned when it is provably cheaper than
+ * every seam that leaves the band, and otherwise the whole image is searched, so
+ * the results are bit-identical to AStarSeamCarver's. APPROXIMATE mode always
+ * returns the in-band seam, and FULL mode never uses the band.
+ *
+ * Pixel energies are cached and only recomputed next to removed vertical seams,
+ * and full searches use the same array-based dynamic program as band searches.
+ */
+public class BandedSeamCarver extends AStarSeamCarver {
+    /** How the carver uses the band around the previously removed seam. */
+    public enum SearchMode {
+        /** Always search the whole image. */
+        FULL,
+        /** Search the band, and the whole image unless the band seam is provably optimal. */
+        EXACT,
+        /** Search only the band whenever there is a previous seam. */
+        APPROXIMATE
+    }
+
+    /** Default number of pixels searched on either side of the previous seam. */
+    public static final int DEFAULT_BAND_RADIUS = 16;
+
+    // width of the column blocks used to lower-bound the cost of seams that leave the band
+    private static final int BLOCK_SIZE = 4;
+
+    private final SearchMode mode;
+    private final int bandRadius;
+
+    // energies[y][x] caches energy(x, y), or is null when it needs to be recomputed
+    private double[][] energies;
+
+    // the most recently removed seams, or null if the image changed in another way since
+    private int[] lastVerticalSeam;
+    private int[] lastHorizontalSeam;
+
+    private int bandedSearches;
+    private int fullSearches;
+
+    public BandedSeamCarver(Picture picture) {
+        this(picture, SearchMode.EXACT, DEFAULT_BAND_RADIUS);
+    }
+
+    public BandedSeamCarver(Picture picture, SearchMode mode, int bandRadius) {
+        super(picture);
+        this.mode = checkedMode(mode);
+        this.bandRadius = checkedRadius(bandRadius);
+    }
+
+    public BandedSeamCarver(PixelBuffer pixels) {
+        this(pixels, SearchMode.EXACT, DEFAULT_BAND_RADIUS);
+    }
+
+    public BandedSeamCarver(PixelBuffer pixels, SearchMode mode, int bandRadius) {
+        super(pixels);
+        this.mode = checkedMode(mode);
+        this.bandRadius = checkedRadius(bandRadius);
+    }
+
+    private static SearchMode checkedMode(SearchMode mode) {
+        if (mode == null) {
+            throw new NullPointerException("Search mode cannot be null.");
+        }
+        return mode;
+    }
+
+    private static int checkedRadius(int bandRadius) {
+        if (bandRadius < 1) {
+            throw new IllegalArgumentException("Band radius must be positive.");
+        }
+        return bandRadius;
+    }
+
+    public SearchMode mode() {
+        return mode;
+    }
+
+    /** The number of seams that were returned from a band search. */
+    public int bandedSearches() {
+        return bandedSearches;
+    }
+
+    /** The number of seams that needed a search of the whole image. */
+    public int fullSearches() {
+        return fullSearches;
+    }
+
+    @Override
+    public void setPicture(Picture picture) {
+        super.setPicture(picture);
+        energies = null;
+        lastVerticalSeam = null;
+        lastHorizontalSeam = null;
+    }
+
+    @Override
+    public double energy(int x, int y) {
+        // Input validation
+        if (x < 0 || x > width() - 1) {
+            throw new IndexOutOfBoundsException("x is out of bounds");
+        }
+
+        if (y < 0 || y > height() - 1) {
+            throw new IndexOutOfBoundsException("y is out of bounds");
+        }
+
+        return energies()[y][x];
+    }
+
+    @Override
+    public int[] findVerticalSeam() {
+        int[] previous = lastVerticalSeam;
+        if (mode == SearchMode.FULL || previous == null) {
+            return fullSearch(true);
+        }
+
+        // after the removal the previous seam's neighbors sit at columns seam[y] - 1 and seam[y]
+        int[] center = new int[height()];
+        for (int y = 0; y < height(); y++) {
+            center[y] = Math.min(previous[y], width() - 1);
+        }
+        return bandedSearch(true, center);
+    }
+
+    @Override
+    public int[] findHorizontalSeam() {
+        int[] previous = lastHorizontalSeam;
+        if (mode == SearchMode.FULL || previous == null) {
+            return fullSearch(false);
+        }
+
+        int[] center = new int[width()];
+        for (int x = 0; x < width(); x++) {
+            center[x] = Math.min(previous[x], height() - 1);
+        }
+        return bandedSearch(false, center);
+    }
+
+    @Override
+    public void removeVerticalSeam(int[] seam) {
+        super.removeVerticalSeam(seam);
+        lastVerticalSeam = seam.clone();
+        lastHorizontalSeam = null;
+        if (energies != null) {
+            updateEnergiesAround(seam);
+        }
+    }
+
+    @Override
+    public void removeHorizontalSeam(int[] seam) {
+        super.removeHorizontalSeam(seam);
+        lastHorizontalSeam = seam.clone();
+        lastVerticalSeam = null;
+        // shifting energies along columns is as expensive as recomputing them
+        energies = null;
+    }
+
+    /**
+     * Searches for a seam in the band of the given radius around center, where a
+     * vertical seam runs along the rows (lines) and picks a column (position) in
+     * each, and a horizontal seam runs along the columns and picks a row.
+     */
+    private int[] bandedSearch(boolean vertical, int[] center) {
+        int lines = vertical ? height() : width();
+        int positions = vertical ? width() : height();
+
+        int[] lo = new int[lines];
+        int[] hi = new int[lines];
+        for (int i = 0; i < lines; i++) {
+            lo[i] = Math.max(0, center[i] - bandRadius);
+            hi[i] = Math.min(positions - 1, center[i] + bandRadius);
+        }
+
+        double[] best = new double[1];
+        int[] seam = search(vertical, lo, hi, null, 0, best);
+        if (mode == SearchMode.APPROXIMATE) {
+            bandedSearches++;
+            return seam;
+        }
+
+        // every seam that leaves the band costs at least this much, so the band seam is
+        // the one a full search would find if it is strictly cheaper (with room for rounding)
+        double bound = outsideLowerBound(vertical, lo, hi);
+        if (Double.isInfinite(bound) || best[0] < bound - 1e-9 * bound) {
+            bandedSearches++;
+            return seam;
+        }
+
+        return fullSearch(vertical);
+    }
+
+    /** Searches the whole image, with the same result as AStarSeamCarver's search. */
+    private int[] fullSearch(boolean vertical) {
+        fullSearches++;
+        int lines = vertical ? height() : width();
+        int positions = vertical ? width() : height();
+        int[] lo = new int[lines];
+        int[] hi = new int[lines];
+        Arrays.fill(hi, positions - 1);
+        return search(vertical, lo, hi, null, 0, new double[1]);
+    }
+
+    /**
+     * Finds the seam within radius of the guide seam on every line that minimizes its
+     * energy plus weight times its distance from the guide on each line. Used by
+     * FrameSequenceCarver to keep the seams of consecutive frames close together.
+     */
+    int[] findGuidedSeam(boolean vertical, int[] guide, int radius, double weight) {
+        int lines = vertical ? height() : width();
+        int positions = vertical ? width() : height();
+        if (guide == null || guide.length != lines) {
+            throw new IllegalArgumentException("Guide seam does not match image size.");
+        }
+
+        int[] center = new int[lines];
+        int[] lo = new int[lines];
+        int[] hi = new int[lines];
+        for (int i = 0; i < lines; i++) {
+            center[i] = Math.max(0, Math.min(guide[i], positions - 1));
+            lo[i] = Math.max(0, center[i] - radius);
+            hi[i] = Math.min(positions - 1, center[i] + radius);
+        }
+        bandedSearches++;
+        return search(vertical, lo, hi, center, weight, new double[1]);
+    }
+
+    /**
+     * Finds the minimum-energy vertical seam that stays within columns [from, to]
+     * in every row. Used by StripSeamCarver to keep each strip's seams out of the
+     * columns it borrows from its neighbors. Not counted in bandedSearches or
+     * fullSearches, which only describe how the band around the last seam did.
+     */
+    int[] findVerticalSeamWithin(int from, int to) {
+        if (from < 0 || to > width() - 1 || from > to) {
+            throw new IllegalArgumentException("Columns " + from + " to " + to + " are out of range.");
+        }
+        int[] lo = new int[height()];
+        int[] hi = new int[height()];
+        Arrays.fill(lo, from);
+        Arrays.fill(hi, to);
+        return search(true, lo, hi, null, 0, new double[1]);
+    }
+
+    /**
+     * Finds the minimum-energy seam that stays within [lo[i], hi[i]] on every line,
+     * breaking ties exactly as AStarSeamCarver does, and stores its cost in best[0].
+     * If guide is not null, each pixel also costs weight times its distance from guide.
+     */
+    private int[] search(boolean vertical, int[] lo, int[] hi, int[] guide, double weight, double[] best) {
+        int lines = lo.length;
+        double[][] cost = new double[lines][];
+        int[][] parent = new int[lines][];
+
+        cost[0] = new double[hi[0] - lo[0] + 1];
+        for (int p = lo[0]; p <= hi[0]; p++) {
+            cost[0][p - lo[0]] = pixelCost(vertical, 0, p, guide, weight);
+        }
+
+        for (int i = 1; i < lines; i++) {
+            checkCancellation(i);
+            double[] previous = cost[i - 1];
+            int previousLo = lo[i - 1];
+            int previousHi = hi[i - 1];
+            cost[i] = new double[hi[i] - lo[i] + 1];
+            parent[i] = new int[hi[i] - lo[i] + 1];
+
+            for (int p = lo[i]; p <= hi[i]; p++) {
+                // same position, then the lower one on ties, then the higher one only if strictly smaller
+                double same = costAt(previous, previousLo, previousHi, p);
+                double lower = costAt(previous, previousLo, previousHi, p - 1);
+                double higher = costAt(previous, previousLo, previousHi, p + 1);
+
+                int from;
+                double min;
+                if (same < lower) {
+                    from = p;
+                    min = same;
+                } else {
+                    from = p - 1;
+                    min = lower;
+                }
+                if (higher < min) {
+                    from = p + 1;
+                    min = higher;
+                }
+
+                cost[i][p - lo[i]] = pixelCost(vertical, i, p, guide, weight) + min;
+                parent[i][p - lo[i]] = from;
+            }
+        }
+
+        // the first strictly smallest total in the last line
+        int last = lines - 1;
+        int end = lo[last];
+        for (int p = lo[last] + 1; p <= hi[last]; p++) {
+            if (cost[last][p - lo[last]] < cost[last][end - lo[last]]) {
+                end = p;
+            }
+        }
+        best[0] = cost[last][end - lo[last]];
+
+        int[] seam = new int[lines];
+        seam[last] = end;
+        for (int i = last; i > 0; i--) {
+            seam[i - 1] = parent[i][seam[i] - lo[i]];
+        }
+        return seam;
+    }
+
+    private static double costAt(double[] cost, int lo, int hi, int p) {
+        if (p < lo || p > hi) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return cost[p - lo];
+    }
+
+    /**
+     * Returns a lower bound on the cost of any seam that uses at least one pixel outside
+     * the band. Positions are grouped into blocks, and since a seam moves at most one
+     * position per line it moves at most one block per line, so a dynamic program over
+     * the blocks' minimum energies, tracking whether the seam has left the band yet,
+     * never overestimates.
+     */
+    private double outsideLowerBound(boolean vertical, int[] lo, int[] hi) {
+        int lines = lo.length;
+        int positions = vertical ? width() : height();
+        int blocks = (positions + BLOCK_SIZE - 1) / BLOCK_SIZE;
+
+        double[] inside = new double[blocks];
+        double[] outside = new double[blocks];
+        double[] any = new double[blocks];
+        double[] stayed = new double[blocks];
+        double[] left = new double[blocks];
+        double[] nextStayed = new double[blocks];
+        double[] nextLeft = new double[blocks];
+
+        for (int i = 0; i < lines; i++) {
+            checkCancellation(i);
+            Arrays.fill(inside, Double.POSITIVE_INFINITY);
+            Arrays.fill(outside, Double.POSITIVE_INFINITY);
+            for (int p = 0; p < positions; p++) {
+                int b = p / BLOCK_SIZE;
+                double e = energyAt(vertical, i, p);
+                if (p >= lo[i] && p <= hi[i]) {
+                    inside[b] = Math.min(inside[b], e);
+                } else {
+                    outside[b] = Math.min(outside[b], e);
+                }
+            }
+            for (int b = 0; b < blocks; b++) {
+                any[b] = Math.min(inside[b], outside[b]);
+            }
+
+            if (i == 0) {
+                System.arraycopy(inside, 0, stayed, 0, blocks);
+                System.arraycopy(outside, 0, left, 0, blocks);
+                continue;
+            }
+
+            for (int b = 0; b < blocks; b++) {
+                double fromStayed = neighborhoodMin(stayed, b);
+                double fromLeft = neighborhoodMin(left, b);
+                nextStayed[b] = fromStayed + inside[b];
+                nextLeft[b] = Math.min(fromLeft + any[b], fromStayed + outside[b]);
+            }
+            double[] swap = stayed;
+            stayed = nextStayed;
+            nextStayed = swap;
+            swap = left;
+            left = nextLeft;
+            nextLeft = swap;
+        }
+
+        double bound = Double.POSITIVE_INFINITY;
+        for (int b = 0; b < blocks; b++) {
+            bound = Math.min(bound, left[b]);
+        }
+        return bound;
+    }
+
+    private static double neighborhoodMin(double[] values, int b) {
+        double min = values[b];
+        if (b > 0) {
+            min = Math.min(min, values[b - 1]);
+        }
+        if (b < values.length - 1) {
+            min = Math.min(min, values[b + 1]);
+        }
+        return min;
+    }
+
+    private double pixelCost(boolean vertical, int line, int position, int[] guide, double weight) {
+        double e = energyAt(vertical, line, position);
+        return guide == null ? e : e + weight * Math.abs(position - guide[line]);
+    }
+
+    /** Returns the energy at the given position of the given line of a seam search. */
+    private double energyAt(boolean vertical, int line, int position) {
+        double[][] e = energies();
+        return vertical ? e[line][position] : e[position][line];
+    }
+
+    private double[][] energies() {
+        if (energies == null) {
+            // only keep the cache once it is complete, in case the search is cancelled
+            double[][] computed = new double[height()][width()];
+            for (int y = 0; y < height(); y++) {
+                checkCancellation(y);
+                for (int x = 0; x < width(); x++) {
+                    computed[y][x] = computeEnergy(x, y);
+                }
+            }
+            energies = computed;
+        }
+        return energies;
+    }
+
+    /**
+     * Shifts the cached energies over the removed vertical seam and recomputes the
+     * ones whose neighbors changed: the pixels next to the seam in each row, the ones
+     * whose upper or lower neighbor is now a different pixel, and the edge columns,
+     * whose neighbors wrap around the image.
+     */
+    private void updateEnergiesAround(int[] seam) {
+        int width = width();
+        int height = height();
+        for (int y = 0; y < height; y++) {
+            double[] row = energies[y];
+            System.arraycopy(row, seam[y] + 1, row, seam[y], width - seam[y]);
+        }
+
+        for (int y = 0; y < height; y++) {
+            int above = seam[(y - 1 + height) % height];
+            int below = seam[(y + 1) % height];
+            int from = Math.max(0, Math.min(seam[y], Math.min(above, below)) - 1);
+            int to = Math.min(width - 1, Math.max(seam[y], Math.max(above, below)));
+
+            double[] row = energies[y];
+            for (int x = from; x <= to; x++) {
+                row[x] = computeEnergy(x, y);
+            }
+            row[0] = computeEnergy(0, y);
+            row[width - 1] = computeEnergy(width - 1, y);
+        }
+    }
+
+    private double computeEnergy(int x, int y) {
+        int width = width();
+        int height = height();
+        int[] row = row(y);
+        int left = row[x > 0 ? x - 1 : width - 1];
+        int right = row[x < width - 1 ? x + 1 : 0];
+        int up = row(y > 0 ? y - 1 : height - 1)[x];
+        int down = row(y < height - 1 ? y + 1 : 0)[x];
+        return dualGradient(left, right, up, down);
+    }
+}
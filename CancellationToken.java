@@ -0,0 +1,61 @@
+package seamcarving;
+
+/**
+ * Tells a long-running carve when to stop: either when cancel() is called, from
+ * any thread, or when an optional deadline passes. Carving operations check the
+ * token between seams and every few rows while searching for a seam.
+ */
+public final class CancellationToken {
+    private final long deadline;
+    private final boolean hasDeadline;
+    private volatile boolean cancelled;
+
+    /** Creates a token without a deadline, which only stops when cancelled. */
+    public CancellationToken() {
+        this.deadline = 0;
+        this.hasDeadline = false;
+    }
+
+    private CancellationToken(long deadline) {
+        this.deadline = deadline;
+        this.hasDeadline = true;
+    }
+
+    /** Creates a token whose deadline is the given number of seconds from now. */
+    public static CancellationToken withTimeout(double timeout) {
+        return new CancellationToken(System.nanoTime() + (long) (timeout * 1e9));
+    }
+
+    /** Creates a token whose deadline is the given System.nanoTime() value. */
+    public static CancellationToken withDeadline(long deadlineNanos) {
+        return new CancellationToken(deadlineNanos);
+    }
+
+    /** Asks the operation using this token to stop as soon as possible. */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /** Returns true iff cancel() has been called. */
+    public boolean cancelRequested() {
+        return cancelled;
+    }
+
+    /** Returns true iff this token has a deadline and it has passed. */
+    public boolean deadlinePassed() {
+        return hasDeadline && System.nanoTime() - deadline >= 0;
+    }
+
+    /** Returns true iff the operation using this token should stop. */
+    public boolean isCancelled() {
+        return cancelled || deadlinePassed();
+    }
+
+    /**
+     * Returns the number of nanoseconds left until the deadline, which may be
+     * negative, or Long.MAX_VALUE if there is no deadline.
+     */
+    public long remainingNanos() {
+        return hasDeadline ? deadline - System.nanoTime() : Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,65 @@
+package seamcarving;
+
+import edu.princeton.cs.algs4.Picture;
+
+/** The result of AStarSeamCarver.carveTo, which may have stopped early. */
+public final class CarveResult {
+    /** How a carve ended. */
+    public enum Outcome {
+        /** All requested seams were removed. */
+        COMPLETED,
+        /** The deadline passed, or was about to, before all seams were removed. */
+        TIMEOUT,
+        /** The carve was cancelled before all seams were removed. */
+        CANCELLED
+    }
+
+    private final Picture picture;
+    private final Outcome outcome;
+    private final int verticalSeamsRemoved;
+    private final int horizontalSeamsRemoved;
+    private final boolean scaled;
+    private final double elapsedTime;
+
+    CarveResult(Picture picture, Outcome outcome, int verticalSeamsRemoved, int horizontalSeamsRemoved,
+                boolean scaled, double elapsedTime) {
+        this.picture = picture;
+        this.outcome = outcome;
+        this.verticalSeamsRemoved = verticalSeamsRemoved;
+        this.horizontalSeamsRemoved = horizontalSeamsRemoved;
+        this.scaled = scaled;
+        this.elapsedTime = elapsedTime;
+    }
+
+    /**
+     * The resulting image: fully carved, partially carved, or partially carved and
+     * then scaled to the requested size if scaled() is true.
+     */
+    public Picture picture() {
+        return picture;
+    }
+
+    public Outcome outcome() {
+        return outcome;
+    }
+
+    /** The number of vertical seams removed by carving, not counting any scaling. */
+    public int verticalSeamsRemoved() {
+        return verticalSeamsRemoved;
+    }
+
+    /** The number of horizontal seams removed by carving, not counting any scaling. */
+    public int horizontalSeamsRemoved() {
+        return horizontalSeamsRemoved;
+    }
+
+    /** Returns true iff the rest of the size reduction was done by plain scaling. */
+    public boolean scaled() {
+        return scaled;
+    }
+
+    /** The total time spent in seconds. */
+    public double elapsedTime() {
+        return elapsedTime;
+    }
+}
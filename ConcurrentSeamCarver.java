@@ -0,0 +1,196 @@
+package seamcarving;
+
+import edu.princeton.cs.algs4.Picture;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A seam carver whose image can be read from any thread while another thread is
+ * finding and removing seams.
+ *
+ * Seams are found and removed by an underlying AStarSeamCarver, one thread at a
+ * time. After every change the carver publishes an immutable snapshot of the
+ * new image, and picture(), width(), height(), get() and energy() read only from
+ * the latest published snapshot, so they never block and never see a partly
+ * removed seam. Since each of those calls may see a newer image than the one
+ * before it, readers that need several consistent values should read them from
+ * a single snapshot().
+ *
+ * Every published snapshot counts the readers using it. Once a newer one has
+ * been published and the last reader is done with the old one, the old one is
+ * released, so the underlying carver reuses its rows for the next copies
+ * instead of allocating new ones.
+ */
+public class ConcurrentSeamCarver implements SeamCarver {
+    /** A published snapshot and the number of references to it. */
+    private static final class Published {
+        private final PictureSnapshot snapshot;
+        // one for being the latest published snapshot plus one per reader, and once 0 it stays 0
+        private final AtomicInteger references = new AtomicInteger(1);
+
+        private Published(PictureSnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        /** Adds a reference, or returns false if the snapshot is no longer in use. */
+        private boolean acquire() {
+            while (true) {
+                int count = references.get();
+                if (count == 0) {
+                    return false;
+                }
+                if (references.compareAndSet(count, count + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        private void release() {
+            references.decrementAndGet();
+        }
+    }
+
+    private final AStarSeamCarver carver;
+    private volatile Published published;
+    // guarded by this; replaced snapshots that may still have readers
+    private final ArrayList<Published> retired = new ArrayList<>();
+
+    public ConcurrentSeamCarver(Picture picture) {
+        this(new AStarSeamCarver(picture));
+    }
+
+    /**
+     * Wraps the given carver, which must not be used directly afterwards. This is
+     * how to make, for example, a BandedSeamCarver safe to read concurrently.
+     */
+    public ConcurrentSeamCarver(AStarSeamCarver carver) {
+        if (carver == null) {
+            throw new NullPointerException("Carver cannot be null.");
+        }
+        this.carver = carver;
+        this.published = new Published(carver.snapshot());
+    }
+
+    /**
+     * Returns the latest published image. The snapshot stays valid, and unchanged,
+     * until the caller closes it, which the caller must do once it is done, since
+     * the carver can't reuse the snapshot's memory before then.
+     */
+    public PictureSnapshot snapshot() {
+        Published p = acquire();
+        return p.snapshot.view(p::release);
+    }
+
+    /** Returns the version of the latest published image. */
+    public long version() {
+        return published.snapshot.version();
+    }
+
+    @Override
+    public Picture picture() {
+        Published p = acquire();
+        try {
+            return p.snapshot.toPicture();
+        } finally {
+            p.release();
+        }
+    }
+
+    @Override
+    public synchronized void setPicture(Picture picture) {
+        reclaim();
+        carver.setPicture(picture);
+        publish();
+    }
+
+    @Override
+    public int width() {
+        return published.snapshot.width();
+    }
+
+    @Override
+    public int height() {
+        return published.snapshot.height();
+    }
+
+    @Override
+    public Color get(int x, int y) {
+        Published p = acquire();
+        try {
+            return p.snapshot.get(x, y);
+        } finally {
+            p.release();
+        }
+    }
+
+    @Override
+    public double energy(int x, int y) {
+        Published p = acquire();
+        try {
+            return p.snapshot.energy(x, y);
+        } finally {
+            p.release();
+        }
+    }
+
+    @Override
+    public synchronized int[] findHorizontalSeam() {
+        return carver.findHorizontalSeam();
+    }
+
+    @Override
+    public synchronized int[] findVerticalSeam() {
+        return carver.findVerticalSeam();
+    }
+
+    @Override
+    public synchronized void removeHorizontalSeam(int[] seam) {
+        reclaim();
+        carver.removeHorizontalSeam(seam);
+        publish();
+    }
+
+    @Override
+    public synchronized void removeVerticalSeam(int[] seam) {
+        reclaim();
+        carver.removeVerticalSeam(seam);
+        publish();
+    }
+
+    /**
+     * Adds a reference to the latest published snapshot. This only fails when the
+     * snapshot has just been replaced, so trying again with the new one never waits
+     * on the carver.
+     */
+    private Published acquire() {
+        while (true) {
+            Published p = published;
+            if (p.acquire()) {
+                return p;
+            }
+        }
+    }
+
+    /** Publishes the carver's current image and retires the previous one. */
+    private void publish() {
+        Published previous = published;
+        published = new Published(carver.snapshot());
+        previous.release();
+        retired.add(previous);
+    }
+
+    /** Releases the retired snapshots that no reader is using any more. */
+    private void reclaim() {
+        Iterator<Published> it = retired.iterator();
+        while (it.hasNext()) {
+            Published p = it.next();
+            if (p.references.get() == 0) {
+                p.snapshot.close();
+                it.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package seamcarving;
+
+import edu.princeton.cs.algs4.Picture;
+
+/**
+ * Carves the frames of a video one at a time, removing the same number of columns
+ * and rows from each, while keeping the seams of consecutive frames close together
+ * so the result does not jitter.
+ *
+ * The first frame, and any frame after reset() or a change of size, is carved like
+ * BandedSeamCarver would. In every other frame the k-th seam is only searched for
+ * within bandRadius of the previous frame's k-th seam, and each pixel of a seam
+ * costs temporalWeight times its distance from that seam on top of its energy.
+ * Only the previous frame's seams are kept, not the frames themselves.
+ */
+public class FrameSequenceCarver {
+    /** Default number of pixels a seam may move between consecutive frames. */
+    public static final int DEFAULT_BAND_RADIUS = 8;
+
+    /** Default extra cost, in units of energy, of each pixel a seam moves away from the previous frame's. */
+    public static final double DEFAULT_TEMPORAL_WEIGHT = 20;
+
+    private final int columns;
+    private final int rows;
+    private final int bandRadius;
+    private final double temporalWeight;
+
+    // the seams removed from the previous frame, in removal order, or null if there is none
+    private int[][] previousVertical;
+    private int[][] previousHorizontal;
+    private int previousWidth;
+    private int previousHeight;
+
+    private int framesCarved;
+    private int keyFrames;
+
+    /** Creates a carver that removes the given number of columns and rows from each frame. */
+    public FrameSequenceCarver(int columns, int rows) {
+        this(columns, rows, DEFAULT_BAND_RADIUS, DEFAULT_TEMPORAL_WEIGHT);
+    }
+
+    public FrameSequenceCarver(int columns, int rows, int bandRadius, double temporalWeight) {
+        if (columns < 0 || rows < 0) {
+            throw new IllegalArgumentException("Cannot remove a negative number of seams.");
+        }
+        if (bandRadius < 1) {
+            throw new IllegalArgumentException("Band radius must be positive.");
+        }
+        if (!(temporalWeight >= 0) || Double.isInfinite(temporalWeight)) {
+            throw new IllegalArgumentException("Temporal weight must be finite and non-negative.");
+        }
+        this.columns = columns;
+        this.rows = rows;
+        this.bandRadius = bandRadius;
+        this.temporalWeight = temporalWeight;
+    }
+
+    /** Carves the next frame of the sequence. */
+    public Picture carve(Picture frame) {
+        if (frame == null) {
+            throw new NullPointerException("Frame cannot be null.");
+        }
+        return carve(PixelBuffer.fromPicture(frame)).toPicture();
+    }
+
+    /** Carves the next frame of the sequence. */
+    public PixelBuffer carve(PixelBuffer frame) {
+        if (frame == null) {
+            throw new NullPointerException("Frame cannot be null.");
+        }
+        if (columns >= frame.width() || rows >= frame.height()) {
+            throw new IllegalArgumentException("Cannot remove every row or column of the frame.");
+        }
+
+        boolean guided = previousVertical != null
+                && frame.width() == previousWidth && frame.height() == previousHeight;
+        if (!guided) {
+            keyFrames++;
+        }
+
+        BandedSeamCarver sc = new BandedSeamCarver(frame);
+        int[][] vertical = new int[columns][];
+        for (int k = 0; k < columns; k++) {
+            vertical[k] = guided
+                    ? sc.findGuidedSeam(true, previousVertical[k], bandRadius, temporalWeight)
+                    : sc.findVerticalSeam();
+            sc.removeVerticalSeam(vertical[k]);
+        }
+        int[][] horizontal = new int[rows][];
+        for (int k = 0; k < rows; k++) {
+            horizontal[k] = guided
+                    ? sc.findGuidedSeam(false, previousHorizontal[k], bandRadius, temporalWeight)
+                    : sc.findHorizontalSeam();
+            sc.removeHorizontalSeam(horizontal[k]);
+        }
+
+        previousVertical = vertical;
+        previousHorizontal = horizontal;
+        previousWidth = frame.width();
+        previousHeight = frame.height();
+        framesCarved++;
+        return sc.pixels();
+    }
+
+    /** Forgets the previous frame's seams, for example at a scene cut. */
+    public void reset() {
+        previousVertical = null;
+        previousHorizontal = null;
+    }
+
+    /** The number of frames carved so far. */
+    public int framesCarved() {
+        return framesCarved;
+    }
+
+    /** The number of frames that were carved without the previous frame's seams to guide them. */
+    public int keyFrames() {
+        return keyFrames;
+    }
+}
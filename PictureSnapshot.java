@@ -0,0 +1,165 @@
+package seamcarving;
+
+import edu.princeton.cs.algs4.Picture;
+
+import java.awt.Color;
+
+/**
+ * An immutable view of an AStarSeamCarver's pixels at the moment it was taken.
+ *
+ * Taking a snapshot is O(1): the snapshot shares the carver's row arrays, and
+ * the carver only copies a row when it needs to modify one that a live snapshot
+ * may still be reading. Closing a snapshot tells the carver it no longer has to
+ * preserve those rows, and lets it reuse the copies it made for later changes,
+ * so callers that are done with a snapshot should close it.
+ */
+public final class PictureSnapshot implements AutoCloseable {
+    // the carver to release the rows to, or null for a view, which runs onClose instead
+    private final AStarSeamCarver owner;
+    private final Runnable onClose;
+    private final int[][] rows;
+    private final int width;
+    private final int height;
+    private final long version;
+    private boolean closed;
+
+    PictureSnapshot(AStarSeamCarver owner, int[][] rows, int width, int height, long version) {
+        this.owner = owner;
+        this.onClose = null;
+        this.rows = rows;
+        this.width = width;
+        this.height = height;
+        this.version = version;
+    }
+
+    private PictureSnapshot(PictureSnapshot shared, Runnable onClose) {
+        this.owner = null;
+        this.onClose = onClose;
+        this.rows = shared.rows;
+        this.width = shared.width;
+        this.height = shared.height;
+        this.version = shared.version;
+    }
+
+    /**
+     * Returns another snapshot of the same pixels, which runs onClose when it is
+     * closed instead of releasing anything. The pixels must stay unchanged until
+     * then. Used by ConcurrentSeamCarver to count the readers of a snapshot.
+     */
+    PictureSnapshot view(Runnable onClose) {
+        checkOpen();
+        return new PictureSnapshot(this, onClose);
+    }
+
+    /** Returns the rows table this snapshot reads from, which must not be modified. */
+    int[][] rows() {
+        return rows;
+    }
+
+    /** Returns the width of the image when the snapshot was taken, in pixels. */
+    public int width() {
+        return width;
+    }
+
+    /** Returns the height of the image when the snapshot was taken, in pixels. */
+    public int height() {
+        return height;
+    }
+
+    /**
+     * Returns the version of the carver's image this snapshot shows. The version
+     * increases every time the carver's image changes.
+     */
+    public long version() {
+        return version;
+    }
+
+    /** Returns the color of pixel (x, y) as a packed ARGB int. */
+    public int getRGB(int x, int y) {
+        validate(x, y);
+        return rows[y][x];
+    }
+
+    /** Returns the color of pixel (x, y). */
+    public Color get(int x, int y) {
+        return new Color(getRGB(x, y));
+    }
+
+    /** Returns the energy of pixel (x, y), as SeamCarver.energy would for the same image. */
+    public double energy(int x, int y) {
+        checkOpen();
+        // Input validation
+        if (x < 0 || x > width - 1) {
+            throw new IndexOutOfBoundsException("x is out of bounds");
+        }
+
+        if (y < 0 || y > height - 1) {
+            throw new IndexOutOfBoundsException("y is out of bounds");
+        }
+
+        int[] row = rows[y];
+        int left = row[x > 0 ? x - 1 : width - 1];
+        int right = row[x < width - 1 ? x + 1 : 0];
+        int up = rows[y > 0 ? y - 1 : height - 1][x];
+        int down = rows[y < height - 1 ? y + 1 : 0][x];
+        return AStarSeamCarver.dualGradient(left, right, up, down);
+    }
+
+    /** Returns a new, independently modifiable Picture with the pixels of this snapshot. */
+    public Picture toPicture() {
+        checkOpen();
+        Picture picture = new Picture(width, height);
+        for (int y = 0; y < height; y++) {
+            int[] row = rows[y];
+            for (int x = 0; x < width; x++) {
+                picture.setRGB(x, y, row[x]);
+            }
+        }
+        return picture;
+    }
+
+    /** Returns a new PixelBuffer with the pixels of this snapshot. */
+    public PixelBuffer toPixelBuffer() {
+        checkOpen();
+        PixelBuffer pixels = new PixelBuffer(width, height);
+        int[] data = pixels.data();
+        for (int y = 0; y < height; y++) {
+            System.arraycopy(rows[y], 0, data, y * width, width);
+        }
+        return pixels;
+    }
+
+    /** Returns true iff this snapshot has been closed. */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /** Releases this snapshot. Reading pixels from a closed snapshot is an error. */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            if (owner != null) {
+                owner.release(this);
+            } else {
+                onClose.run();
+            }
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Snapshot has been closed.");
+        }
+    }
+
+    private void validate(int x, int y) {
+        checkOpen();
+        if (x < 0 || x > width - 1) {
+            throw new IllegalArgumentException("x out of bounds");
+        }
+        if (y < 0 || y > height - 1) {
+            throw new IllegalArgumentException("y out of bounds");
+        }
+    }
+}
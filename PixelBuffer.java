@@ -0,0 +1,99 @@
+package seamcarving;
+
+import edu.princeton.cs.algs4.Picture;
+
+/**
+ * A width-by-height image stored as packed ARGB ints in a single row-major array,
+ * so that pixel (x, y) is at index y * width + x. Unlike Picture it has no
+ * BufferedImage behind it, so it can be filled and read in bulk.
+ */
+public final class PixelBuffer {
+    private final int width;
+    private final int height;
+    private final int[] argb;
+
+    /** Creates a buffer of the given size with every pixel set to 0. */
+    public PixelBuffer(int width, int height) {
+        this(width, height, new int[checkedSize(width, height)]);
+    }
+
+    /** Creates a buffer that uses the given array, which must hold width * height pixels. */
+    public PixelBuffer(int width, int height, int[] argb) {
+        if (argb == null) {
+            throw new NullPointerException("Pixel array cannot be null.");
+        }
+        if (argb.length != checkedSize(width, height)) {
+            throw new IllegalArgumentException("Pixel array length does not match image size.");
+        }
+        this.width = width;
+        this.height = height;
+        this.argb = argb;
+    }
+
+    /** Copies the pixels of the given picture into a new buffer. */
+    public static PixelBuffer fromPicture(Picture picture) {
+        PixelBuffer buffer = new PixelBuffer(picture.width(), picture.height());
+        for (int y = 0; y < buffer.height; y++) {
+            int offset = y * buffer.width;
+            for (int x = 0; x < buffer.width; x++) {
+                buffer.argb[offset + x] = picture.getRGB(x, y);
+            }
+        }
+        return buffer;
+    }
+
+    public int width() {
+        return width;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    public int getRGB(int x, int y) {
+        validate(x, y);
+        return argb[y * width + x];
+    }
+
+    public void setRGB(int x, int y, int rgb) {
+        validate(x, y);
+        argb[y * width + x] = rgb;
+    }
+
+    /** Returns the backing array itself, in row-major order. */
+    public int[] data() {
+        return argb;
+    }
+
+    /** Returns a new Picture with the pixels of this buffer. */
+    public Picture toPicture() {
+        Picture picture = new Picture(width, height);
+        for (int y = 0; y < height; y++) {
+            int offset = y * width;
+            for (int x = 0; x < width; x++) {
+                picture.setRGB(x, y, argb[offset + x]);
+            }
+        }
+        return picture;
+    }
+
+    private void validate(int x, int y) {
+        if (x < 0 || x > width - 1) {
+            throw new IllegalArgumentException("x out of bounds");
+        }
+        if (y < 0 || y > height - 1) {
+            throw new IllegalArgumentException("y out of bounds");
+        }
+    }
+
+    private static int checkedSize(int width, int height) {
+        if (width < 1 || height < 1) {
+            throw new IllegalArgumentException("Image dimensions must be positive.");
+        }
+        long size = (long) width * height;
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Image of " + size + " pixels is too large.");
+        }
+        return (int) size;
+    }
+}
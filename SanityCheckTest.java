@@ -2,11 +2,16 @@ package seamcarving;
 
 import edu.princeton.cs.algs4.Picture;
 import org.junit.Test;
+import seamcarving.util.PictureUtils;
 
 import java.awt.Color;
+import java.util.Random;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
 
 public class SanityCheckTest {
     @Test
@@ -59,4 +64,305 @@ public class SanityCheckTest {
         // Exact seam may differ depending on tie-breaking
         assertArrayEquals(expected, seam);
     }
+
+    @Test
+    public void snapshotIsolationTest() {
+        Picture p = PictureUtils.randomPicture(8, 6);
+        AStarSeamCarver sc = new AStarSeamCarver(p);
+
+        PictureSnapshot before = sc.snapshot();
+        int[] seam = sc.findVerticalSeam();
+        sc.removeVerticalSeam(seam);
+        PictureSnapshot after = sc.snapshot();
+        sc.removeHorizontalSeam(sc.findHorizontalSeam());
+
+        /* The first snapshot still shows the original picture */
+        assertEquals(8, before.width());
+        assertEquals(6, before.height());
+        for (int x = 0; x < 8; x++) {
+            for (int y = 0; y < 6; y++) {
+                assertEquals(p.getRGB(x, y), before.getRGB(x, y));
+            }
+        }
+
+        /* The second one shows the picture with exactly the vertical seam removed */
+        assertEquals(7, after.width());
+        assertEquals(6, after.height());
+        for (int y = 0; y < 6; y++) {
+            for (int x = 0; x < 7; x++) {
+                int source = x < seam[y] ? x : x + 1;
+                assertEquals(p.getRGB(source, y), after.getRGB(x, y));
+            }
+        }
+        assertNotEquals(before.version(), after.version());
+
+        before.close();
+        after.close();
+        assertEquals(5, sc.picture().height());
+    }
+
+    @Test
+    public void bandedSeamMatchesFullSearchTest() {
+        /* Noise with a narrow flat corridor, so some band searches can be proven optimal */
+        Random random = new Random(332);
+        Picture p = new Picture(120, 80);
+        for (int y = 0; y < 80; y++) {
+            int corridor = 40 + (int) (8 * Math.sin(y * 0.1));
+            for (int x = 0; x < 120; x++) {
+                if (x >= corridor && x < corridor + 8) {
+                    p.set(x, y, new Color(120, 120, 120));
+                } else {
+                    p.set(x, y, new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256)));
+                }
+            }
+        }
+
+        AStarSeamCarver full = new AStarSeamCarver(p);
+        BandedSeamCarver banded = new BandedSeamCarver(p, BandedSeamCarver.SearchMode.EXACT, 8);
+        for (int i = 0; i < 12; i++) {
+            int[] expected = full.findVerticalSeam();
+            int[] actual = banded.findVerticalSeam();
+            assertArrayEquals(expected, actual);
+            full.removeVerticalSeam(expected);
+            banded.removeVerticalSeam(actual);
+        }
+        for (int i = 0; i < 3; i++) {
+            int[] expected = full.findHorizontalSeam();
+            int[] actual = banded.findHorizontalSeam();
+            assertArrayEquals(expected, actual);
+            full.removeHorizontalSeam(expected);
+            banded.removeHorizontalSeam(actual);
+        }
+        /* The first search has no previous seam; after it, 5 band seams are proven optimal */
+        assertEquals(5, banded.bandedSearches());
+        assertEquals(10, banded.fullSearches());
+    }
+
+    @Test
+    public void bandedSeamFallsBackToFullSearchTest() {
+        /* In pure noise, a narrow band can't be proven to hold the cheapest seam */
+        Random random = new Random(27);
+        Picture p = new Picture(60, 40);
+        for (int y = 0; y < 40; y++) {
+            for (int x = 0; x < 60; x++) {
+                p.set(x, y, new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256)));
+            }
+        }
+
+        AStarSeamCarver full = new AStarSeamCarver(p);
+        BandedSeamCarver exact = new BandedSeamCarver(p, BandedSeamCarver.SearchMode.EXACT, 2);
+        BandedSeamCarver approximate = new BandedSeamCarver(p, BandedSeamCarver.SearchMode.APPROXIMATE, 2);
+        for (int i = 0; i < 10; i++) {
+            int[] expected = full.findVerticalSeam();
+            assertArrayEquals(expected, exact.findVerticalSeam());
+            full.removeVerticalSeam(expected);
+            exact.removeVerticalSeam(expected);
+            approximate.removeVerticalSeam(approximate.findVerticalSeam());
+        }
+        assertEquals(0, exact.bandedSearches());
+        assertEquals(10, exact.fullSearches());
+        assertEquals(9, approximate.bandedSearches());
+        assertEquals(1, approximate.fullSearches());
+    }
+
+    @Test
+    public void stripCarvingTest() {
+        Random random = new Random(28);
+        Picture p = new Picture(120, 60);
+        for (int x = 0; x < 120; x++) {
+            for (int y = 0; y < 60; y++) {
+                p.set(x, y, new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256)));
+            }
+        }
+
+        SeamCarver sc = new BandedSeamCarver(p);
+        for (int i = 0; i < 30; i++) {
+            sc.removeVerticalSeam(sc.findVerticalSeam());
+        }
+        Picture sequential = sc.picture();
+        Picture strips = new StripSeamCarver(4, 4).removeVerticalSeams(p, 30);
+        assertEquals(90, strips.width());
+        assertEquals(60, strips.height());
+
+        /* Every row keeps its pixels in order */
+        for (int y = 0; y < 60; y++) {
+            int source = 0;
+            for (int x = 0; x < 90; x++) {
+                while (source < 120 && p.getRGB(source, y) != strips.getRGB(x, y)) {
+                    source++;
+                }
+                assertTrue(source < 120);
+                source++;
+            }
+        }
+
+        /* The approximation costs little energy compared to carving sequentially */
+        double sequentialEnergy = StripSeamCarver.totalEnergy(sequential);
+        double stripEnergy = StripSeamCarver.totalEnergy(strips);
+        assertEquals(sequentialEnergy, stripEnergy, 0.02 * sequentialEnergy);
+
+        /* The strips' windowed searches stay in their columns and don't count as band or full searches */
+        BandedSeamCarver strip = new BandedSeamCarver(p);
+        int[] seam = strip.findVerticalSeamWithin(10, 30);
+        for (int x : seam) {
+            assertTrue(x >= 10 && x <= 30);
+        }
+        assertEquals(0, strip.bandedSearches());
+        assertEquals(0, strip.fullSearches());
+    }
+
+    @Test
+    public void concurrentReaderSeesWholeSeamsTest() throws InterruptedException {
+        /* Each pixel holds its original coordinates, so any snapshot is easy to check */
+        Picture p = new Picture(200, 150);
+        for (int x = 0; x < 200; x++) {
+            for (int y = 0; y < 150; y++) {
+                p.setRGB(x, y, x | (y << 12));
+            }
+        }
+        ConcurrentSeamCarver sc = new ConcurrentSeamCarver(p);
+
+        /* Removes the first column and the first row in turn while the main thread reads */
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 100; i++) {
+                sc.removeVerticalSeam(new int[sc.height()]);
+                sc.removeHorizontalSeam(new int[sc.width()]);
+            }
+        });
+        writer.start();
+
+        int checked = 0;
+        while (writer.isAlive() || checked == 0) {
+            try (PictureSnapshot snapshot = sc.snapshot()) {
+                int dx = snapshot.getRGB(0, 0) & 0xFFF;
+                int dy = (snapshot.getRGB(0, 0) >> 12) & 0xFFF;
+                assertEquals(200 - dx, snapshot.width());
+                assertEquals(150 - dy, snapshot.height());
+                for (int y = 0; y < snapshot.height(); y++) {
+                    for (int x = 0; x < snapshot.width(); x++) {
+                        assertEquals((x + dx) | ((y + dy) << 12), snapshot.getRGB(x, y) & 0xFFFFFF);
+                    }
+                }
+            }
+            checked++;
+        }
+        writer.join();
+
+        assertEquals(100, sc.width());
+        assertEquals(50, sc.height());
+        assertEquals(100 | (100 << 12), sc.get(0, 0).getRGB() & 0xFFFFFF);
+    }
+
+    @Test
+    public void carveToCompletesTest() {
+        Picture p = PictureUtils.randomPicture(20, 15);
+        AStarSeamCarver sc = new AStarSeamCarver(p);
+        CarveResult result = sc.carveTo(15, 12, new CancellationToken(), true);
+        assertEquals(CarveResult.Outcome.COMPLETED, result.outcome());
+        assertEquals(5, result.verticalSeamsRemoved());
+        assertEquals(3, result.horizontalSeamsRemoved());
+        assertFalse(result.scaled());
+        assertEquals(15, result.picture().width());
+        assertEquals(12, result.picture().height());
+    }
+
+    @Test
+    public void carveToCancelledTest() throws InterruptedException {
+        /* Cancelled before starting: nothing is removed, and cancelling never scales */
+        Picture p = PictureUtils.randomPicture(20, 15);
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        CarveResult result = new AStarSeamCarver(p).carveTo(10, 10, token, true);
+        assertEquals(CarveResult.Outcome.CANCELLED, result.outcome());
+        assertEquals(0, result.verticalSeamsRemoved() + result.horizontalSeamsRemoved());
+        assertFalse(result.scaled());
+        assertEquals(20, result.picture().width());
+
+        /* Cancelled from another thread partway through a long carve */
+        AStarSeamCarver sc = new AStarSeamCarver(PictureUtils.randomPicture(300, 200));
+        CancellationToken later = new CancellationToken();
+        Thread canceller = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            later.cancel();
+        });
+        canceller.start();
+        result = sc.carveTo(1, 200, later, true);
+        canceller.join();
+        assertEquals(CarveResult.Outcome.CANCELLED, result.outcome());
+        assertTrue(result.verticalSeamsRemoved() < 299);
+        assertEquals(300 - result.verticalSeamsRemoved(), result.picture().width());
+        assertEquals(300 - result.verticalSeamsRemoved(), sc.width());
+    }
+
+    @Test
+    public void carveToDeadlineTest() {
+        /* A deadline that has already passed either leaves the picture alone or scales it */
+        Picture p = PictureUtils.randomPicture(20, 15);
+        long passed = System.nanoTime() - 1;
+        CarveResult result = new AStarSeamCarver(p).carveTo(10, 10, CancellationToken.withDeadline(passed), false);
+        assertEquals(CarveResult.Outcome.TIMEOUT, result.outcome());
+        assertFalse(result.scaled());
+        assertEquals(20, result.picture().width());
+        assertEquals(15, result.picture().height());
+
+        result = new AStarSeamCarver(p).carveTo(10, 10, CancellationToken.withDeadline(passed), true);
+        assertEquals(CarveResult.Outcome.TIMEOUT, result.outcome());
+        assertTrue(result.scaled());
+        assertEquals(0, result.verticalSeamsRemoved() + result.horizontalSeamsRemoved());
+        assertEquals(10, result.picture().width());
+        assertEquals(10, result.picture().height());
+
+        /* A deadline in the middle of a long carve scales the rest of the way */
+        AStarSeamCarver sc = new AStarSeamCarver(PictureUtils.randomPicture(300, 200));
+        result = sc.carveTo(1, 200, CancellationToken.withTimeout(0.1), true);
+        assertEquals(CarveResult.Outcome.TIMEOUT, result.outcome());
+        assertTrue(result.scaled());
+        assertTrue(result.verticalSeamsRemoved() < 299);
+        assertEquals(1, result.picture().width());
+        assertEquals(200, result.picture().height());
+    }
+
+    @Test
+    public void transportMapMatchesSequentialCarveTest() {
+        Random random = new Random(33);
+        Picture p = new Picture(14, 11);
+        for (int x = 0; x < 14; x++) {
+            for (int y = 0; y < 11; y++) {
+                p.set(x, y, new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256)));
+            }
+        }
+
+        TransportMapCarver tmc = new TransportMapCarver(p, 3, 5);
+        assertEquals(9, tmc.picture().width());
+        assertEquals(8, tmc.picture().height());
+        assertEquals(8, tmc.order().length());
+        assertEquals(5, tmc.order().replace("H", "").length());
+
+        /* Carving the seams one at a time in the reported order gives the same picture and energy */
+        SeamCarver sc = new AStarSeamCarver(p);
+        double total = 0;
+        for (char step : tmc.order().toCharArray()) {
+            boolean vertical = step == 'V';
+            int[] seam = vertical ? sc.findVerticalSeam() : sc.findHorizontalSeam();
+            for (int k = 0; k < seam.length; k++) {
+                total += vertical ? sc.energy(seam[k], k) : sc.energy(k, seam[k]);
+            }
+            if (vertical) {
+                sc.removeVerticalSeam(seam);
+            } else {
+                sc.removeHorizontalSeam(seam);
+            }
+        }
+        assertEquals(tmc.optimalEnergy(), total, 1e-6);
+        Picture expected = sc.picture();
+        for (int x = 0; x < 9; x++) {
+            for (int y = 0; y < 8; y++) {
+                assertEquals(expected.getRGB(x, y), tmc.picture().getRGB(x, y));
+            }
+        }
+    }
 }
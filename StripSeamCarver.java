@@ -0,0 +1,176 @@
+package seamcarving;
+
+import edu.princeton.cs.algs4.Picture;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Approximately removes vertical seams by splitting the picture into vertical
+ * strips and carving each strip independently, in parallel, with a
+ * BandedSeamCarver. Each strip removes a number of seams proportional to its
+ * width, and the carved strips are stitched back together.
+ *
+ * Each strip is carved together with up to overlap columns of its neighbors on
+ * either side, so the energies near its edges are computed from the real
+ * neighboring pixels, but its seams stay within its own columns. Seams can't
+ * cross strip boundaries, so the result is usually not the one a sequential
+ * carve would produce.
+ */
+public class StripSeamCarver {
+    private final int strips;
+    private final int overlap;
+    private final Executor executor;
+
+    public StripSeamCarver(int strips, int overlap) {
+        this(strips, overlap, ForkJoinPool.commonPool());
+    }
+
+    public StripSeamCarver(int strips, int overlap, Executor executor) {
+        if (strips < 1) {
+            throw new IllegalArgumentException("Number of strips must be positive.");
+        }
+        if (overlap < 0) {
+            throw new IllegalArgumentException("Overlap cannot be negative.");
+        }
+        if (executor == null) {
+            throw new NullPointerException("Executor cannot be null.");
+        }
+        this.strips = strips;
+        this.overlap = overlap;
+        this.executor = executor;
+    }
+
+    public int strips() {
+        return strips;
+    }
+
+    public int overlap() {
+        return overlap;
+    }
+
+    /** Returns a new picture with count columns removed from the given one. */
+    public Picture removeVerticalSeams(Picture picture, int count) {
+        if (picture == null) {
+            throw new NullPointerException("Picture cannot be null.");
+        }
+        int width = picture.width();
+        if (count < 0 || count > width - 1) {
+            throw new IllegalArgumentException("Cannot remove " + count + " seams from an image of width " + width + ".");
+        }
+
+        // each strip needs at least two columns and to keep at least one of them
+        int n = Math.max(1, Math.min(strips, Math.min(width / 2, width - count)));
+        int[] start = new int[n + 1];
+        for (int i = 0; i <= n; i++) {
+            start[i] = (int) ((long) i * width / n);
+        }
+        int[] seams = apportion(start, count);
+
+        List<CompletableFuture<int[][]>> carved = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            int from = start[i];
+            int to = start[i + 1];
+            int k = seams[i];
+            carved.add(CompletableFuture.supplyAsync(() -> carveStrip(picture, from, to, k), executor));
+        }
+
+        // stitch the strips together from left to right
+        Picture result = new Picture(width - count, picture.height());
+        int offset = 0;
+        for (int i = 0; i < n; i++) {
+            int[][] strip = carved.get(i).join();
+            for (int y = 0; y < strip.length; y++) {
+                for (int x = 0; x < strip[y].length; x++) {
+                    result.setRGB(offset + x, y, strip[y][x]);
+                }
+            }
+            offset += start[i + 1] - start[i] - seams[i];
+        }
+        return result;
+    }
+
+    /** Returns the sum of the energies of all pixels in the picture. */
+    public static double totalEnergy(Picture picture) {
+        SeamCarver sc = new BandedSeamCarver(picture);
+        double total = 0;
+        for (int y = 0; y < sc.height(); y++) {
+            for (int x = 0; x < sc.width(); x++) {
+                total += sc.energy(x, y);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Splits count seams between the strips in proportion to their widths, handing the
+     * leftovers to the strips with the largest remainders, and never more than a
+     * strip's width minus one.
+     */
+    private static int[] apportion(int[] start, int count) {
+        int n = start.length - 1;
+        int width = start[n];
+        int[] seams = new int[n];
+        long[] remainder = new long[n];
+        int assigned = 0;
+        for (int i = 0; i < n; i++) {
+            long share = (long) count * (start[i + 1] - start[i]);
+            seams[i] = (int) (share / width);
+            remainder[i] = share % width;
+            assigned += seams[i];
+        }
+
+        while (assigned < count) {
+            int best = -1;
+            for (int i = 0; i < n; i++) {
+                boolean room = seams[i] < start[i + 1] - start[i] - 1;
+                if (room && (best == -1 || remainder[i] > remainder[best])) {
+                    best = i;
+                }
+            }
+            seams[best]++;
+            remainder[best] = -1;
+            assigned++;
+        }
+        return seams;
+    }
+
+    /**
+     * Carves count seams out of columns [from, to), using the overlap only for the
+     * energies next to the strip's edges, and returns the remaining pixels of the
+     * strip row by row. The seams never enter the overlap, so every one of them is
+     * a connected seam of the strip's own columns.
+     */
+    private int[][] carveStrip(Picture picture, int from, int to, int count) {
+        int left = Math.max(0, from - overlap);
+        int right = Math.min(picture.width(), to + overlap);
+        int height = picture.height();
+
+        Picture strip = new Picture(right - left, height);
+        for (int y = 0; y < height; y++) {
+            for (int x = left; x < right; x++) {
+                strip.setRGB(x - left, y, picture.getRGB(x, y));
+            }
+        }
+
+        // the strip's own columns start after the left overlap and shrink by one with every seam
+        int first = from - left;
+        BandedSeamCarver sc = new BandedSeamCarver(strip);
+        for (int i = 0; i < count; i++) {
+            int last = to - left - i - 1;
+            sc.removeVerticalSeam(sc.findVerticalSeamWithin(first, last));
+        }
+
+        int target = to - from - count;
+        int[][] result = new int[height][target];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < target; x++) {
+                result[y][x] = sc.getRGB(first + x, y);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,167 @@
+package seamcarving;
+
+import edu.princeton.cs.algs4.Picture;
+
+/**
+ * Shrinks a picture by a given number of rows and columns, removing the seams in
+ * the order with the lowest total seam energy instead of simply alternating.
+ *
+ * The order is found with the transport map of Avidan and Shamir: T(i, j) is the
+ * lowest total energy of removing i horizontal and j vertical seams, and
+ *
+ *     T(i, j) = min(T(i - 1, j) + E(horizontal seam of I(i - 1, j)),
+ *                   T(i, j - 1) + E(vertical seam of I(i, j - 1)))
+ *
+ * where I(i, j) is the image that reaches T(i, j). The table is filled one row at
+ * a time, keeping only the images of the current row and one bit per entry for
+ * the choice made, so the memory used is about (columns + 1) copies of the image.
+ * Immediately computes the whole map, like the solvers in the astar package.
+ */
+public class TransportMapCarver {
+    private final Picture result;
+    private final String order;
+    private final double optimalEnergy;
+    private final double alternatingEnergy;
+    private final double elapsedTime;
+
+    /**
+     * Computes the best order to remove the given number of horizontal seams
+     * (rows) and vertical seams (columns) from the picture.
+     */
+    public TransportMapCarver(Picture picture, int rows, int columns) {
+        if (picture == null) {
+            throw new NullPointerException("Picture cannot be null.");
+        }
+        if (rows < 0 || columns < 0) {
+            throw new IllegalArgumentException("Cannot remove a negative number of seams.");
+        }
+        if (rows >= picture.height() || columns >= picture.width()) {
+            throw new IllegalArgumentException("Cannot remove every row or column of the picture.");
+        }
+        long start = System.nanoTime();
+
+        // frontier[j] holds I(i, j) for the row i being filled, or I(i - 1, j) before it is replaced
+        PixelBuffer[] frontier = new PixelBuffer[columns + 1];
+        double[] cost = new double[columns + 1];
+        // vertical[i][j] is true iff I(i, j) is I(i, j - 1) minus a vertical seam
+        boolean[][] vertical = new boolean[rows + 1][columns + 1];
+
+        // row 0 only removes vertical seams
+        BandedSeamCarver left = new BandedSeamCarver(picture);
+        frontier[0] = left.pixels();
+        for (int j = 1; j <= columns; j++) {
+            int[] seam = left.findVerticalSeam();
+            cost[j] = cost[j - 1] + seamEnergy(left, seam, true);
+            left.removeVerticalSeam(seam);
+            frontier[j] = left.pixels();
+            vertical[0][j] = true;
+        }
+
+        for (int i = 1; i <= rows; i++) {
+            for (int j = 0; j <= columns; j++) {
+                // cost[j] is still T(i - 1, j) and cost[j - 1] is already T(i, j - 1)
+                BandedSeamCarver up = new BandedSeamCarver(frontier[j]);
+                int[] horizontalSeam = up.findHorizontalSeam();
+                double horizontalCost = cost[j] + seamEnergy(up, horizontalSeam, false);
+
+                if (j > 0) {
+                    // left holds I(i, j - 1), whose pixels are already saved in frontier[j - 1]
+                    int[] verticalSeam = left.findVerticalSeam();
+                    double verticalCost = cost[j - 1] + seamEnergy(left, verticalSeam, true);
+                    if (verticalCost < horizontalCost) {
+                        left.removeVerticalSeam(verticalSeam);
+                        cost[j] = verticalCost;
+                        frontier[j] = left.pixels();
+                        vertical[i][j] = true;
+                        continue;
+                    }
+                }
+                up.removeHorizontalSeam(horizontalSeam);
+                cost[j] = horizontalCost;
+                frontier[j] = up.pixels();
+                left = up;
+            }
+        }
+
+        // walk the choices back from (rows, columns) to recover the order
+        char[] steps = new char[rows + columns];
+        for (int i = rows, j = columns, k = steps.length - 1; k >= 0; k--) {
+            if (vertical[i][j]) {
+                steps[k] = 'V';
+                j--;
+            } else {
+                steps[k] = 'H';
+                i--;
+            }
+        }
+        order = new String(steps);
+        optimalEnergy = cost[columns];
+        result = frontier[columns].toPicture();
+        alternatingEnergy = alternatingEnergy(picture, rows, columns);
+        elapsedTime = (System.nanoTime() - start) / 1e9;
+    }
+
+    /** Returns the total seam energy of removing the seams alternately, starting with a vertical one. */
+    private static double alternatingEnergy(Picture picture, int rows, int columns) {
+        BandedSeamCarver sc = new BandedSeamCarver(picture);
+        double total = 0;
+        for (int k = 0, i = 0, j = 0; k < rows + columns; k++) {
+            if (j < columns && (k % 2 == 0 || i == rows)) {
+                int[] seam = sc.findVerticalSeam();
+                total += seamEnergy(sc, seam, true);
+                sc.removeVerticalSeam(seam);
+                j++;
+            } else {
+                int[] seam = sc.findHorizontalSeam();
+                total += seamEnergy(sc, seam, false);
+                sc.removeHorizontalSeam(seam);
+                i++;
+            }
+        }
+        return total;
+    }
+
+    private static double seamEnergy(SeamCarver sc, int[] seam, boolean vertical) {
+        double total = 0;
+        for (int k = 0; k < seam.length; k++) {
+            total += vertical ? sc.energy(seam[k], k) : sc.energy(k, seam[k]);
+        }
+        return total;
+    }
+
+    /** The picture with the seams removed in the optimal order. */
+    public Picture picture() {
+        return result;
+    }
+
+    /**
+     * The optimal order as a string of 'V' (vertical seam, one column fewer) and
+     * 'H' (horizontal seam, one row fewer), first removal first.
+     */
+    public String order() {
+        return order;
+    }
+
+    /** The total energy of the seams removed in the optimal order. */
+    public double optimalEnergy() {
+        return optimalEnergy;
+    }
+
+    /** The total energy of the seams removed when alternating, starting with a vertical seam. */
+    public double alternatingEnergy() {
+        return alternatingEnergy;
+    }
+
+    /**
+     * How much less seam energy the optimal order removes than alternating. Each
+     * seam is still chosen greedily, so in rare cases this can be slightly negative.
+     */
+    public double energySaved() {
+        return alternatingEnergy - optimalEnergy;
+    }
+
+    /** The total time spent in seconds, including the alternating comparison. */
+    public double elapsedTime() {
+        return elapsedTime;
+    }
+}
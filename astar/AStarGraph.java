@@ -12,4 +12,39 @@ public interface AStarGraph<Vertex> {
      *  the A* heuristic function for this graph.
      */
     double estimatedDistanceToGoal(Vertex s, Vertex goal);
+
+    /**
+     * Returns true if heuristicDelta is cheaper than estimating the distance from
+     * scratch for this goal, so that solvers should use it. False by default.
+     */
+    default boolean hasHeuristicDelta(Vertex goal) {
+        return false;
+    }
+
+    /**
+     * Returns how much the estimated distance to the goal changes along the edge
+     * from one vertex to its neighbor, i.e. estimatedDistanceToGoal(to, goal) minus
+     * estimatedDistanceToGoal(from, goal). By default both are computed; graphs
+     * whose heuristic depends on little of a vertex can work out just the change.
+     */
+    default double heuristicDelta(Vertex from, Vertex to, Vertex goal) {
+        return estimatedDistanceToGoal(to, goal) - estimatedDistanceToGoal(from, goal);
+    }
+
+    /**
+     * Calls action once for each outgoing edge from the given vertex, with the
+     * vertex the edge leads to and its weight. By default this goes through
+     * neighbors(v); graphs can override it to avoid building the list and edges.
+     */
+    default void forEachNeighbor(Vertex v, NeighborConsumer<Vertex> action) {
+        for (WeightedEdge<Vertex> e : neighbors(v)) {
+            action.accept(e.to(), e.weight());
+        }
+    }
+
+    /** Receives the outgoing edges of a vertex from forEachNeighbor. */
+    @FunctionalInterface
+    interface NeighborConsumer<Vertex> {
+        void accept(Vertex to, double weight);
+    }
 }
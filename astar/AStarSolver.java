@@ -1,23 +1,37 @@
 package astar;
 
 import edu.princeton.cs.algs4.Stopwatch;
+import pq.ExtrinsicMinPQ;
 import pq.TreeMapMinPQ;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * @see ShortestPathsSolver for more method documentation
  */
 public class AStarSolver<Vertex> implements ShortestPathsSolver<Vertex> {
-    TreeMapMinPQ<Vertex> fringe;
+    ExtrinsicMinPQ<Vertex> fringe;
     HashSet<Vertex> visited;
 
     HashMap<Vertex, Vertex> edgeTo;
     HashMap<Vertex, Double> distanceTo;
 
+    // the vertex being expanded and its distance, for relaxNeighbor
+    AStarGraph<Vertex> graph;
+    Vertex goal;
+    Vertex expanding;
+    double expandingDistance;
+    // whether neighbors' heuristics are found from the expanding vertex's with heuristicDelta
+    boolean incremental;
+    double expandingHeuristic;
+    // null if nobody is listening; timingHeuristic while the listener wants this expansion timed
+    SearchListener<Vertex> listener;
+    boolean timingHeuristic;
+
     SolverOutcome outcome;
     List<Vertex> solution;
     double solutionWeight;
@@ -30,16 +44,47 @@ public class AStarSolver<Vertex> implements ShortestPathsSolver<Vertex> {
      * their results in constant time. The timeout is given in seconds.
      */
     public AStarSolver(AStarGraph<Vertex> input, Vertex start, Vertex end, double timeout) {
+        this(input, start, end, timeout, TreeMapMinPQ::new);
+    }
+
+    /**
+     * Same as above, but keeps the fringe in a priority queue made by the given
+     * factory, such as IndexedHeapMinPQ::new, instead of a TreeMapMinPQ.
+     */
+    public AStarSolver(AStarGraph<Vertex> input, Vertex start, Vertex end, double timeout,
+                       Supplier<? extends ExtrinsicMinPQ<Vertex>> fringeFactory) {
+        this(input, start, end, timeout, fringeFactory, null);
+    }
+
+    /** Same as the first constructor, but reports the events of the search to the listener. */
+    public AStarSolver(AStarGraph<Vertex> input, Vertex start, Vertex end, double timeout,
+                       SearchListener<Vertex> listener) {
+        this(input, start, end, timeout, TreeMapMinPQ::new, listener);
+    }
+
+    /**
+     * Same as the second constructor, but reports the events of the search to the
+     * listener, if it is not null.
+     */
+    public AStarSolver(AStarGraph<Vertex> input, Vertex start, Vertex end, double timeout,
+                       Supplier<? extends ExtrinsicMinPQ<Vertex>> fringeFactory,
+                       SearchListener<Vertex> listener) {
         // Initialize the timer handle timeout
         Stopwatch sw = new Stopwatch();
 
         // initialize instance variables
         solution = new ArrayList<>();
-        fringe = new TreeMapMinPQ<>();
+        fringe = fringeFactory.get();
         visited = new HashSet<>();
         edgeTo = new HashMap<>();
         distanceTo = new HashMap<>();
         numStatesExplored = 0;
+        graph = input;
+        goal = end;
+        incremental = input.hasHeuristicDelta(end);
+        this.listener = listener;
+        // created once, so that expanding a vertex allocates nothing itself
+        AStarGraph.NeighborConsumer<Vertex> relaxNeighbor = this::relaxNeighbor;
 
         // initialize the start vertex
         fringe.add(start, input.estimatedDistanceToGoal(start, end));
@@ -70,22 +115,25 @@ public class AStarSolver<Vertex> implements ShortestPathsSolver<Vertex> {
                 explorationTime = sw.elapsedTime();
 
                 // the shortest path is found
+                if (listener != null) {
+                    listener.finished(this);
+                }
                 return;
             // Otherwise, if the vertex isn't the end
             } else {
                 // Increment the number of steps that have been taken to get to this vertex
                 numStatesExplored++;
 
-                // Iterate over this vertices neighbor's and for each edge
-                List<WeightedEdge<Vertex>> edges = input.neighbors(v);
-                for (WeightedEdge<Vertex> e : edges) {
-                    Vertex neighbor = e.to();
-                    //System.out.println("n = " + neighbor);
-                    double weight = distanceTo.get(v) + e.weight();
-                    double heuristic = input.estimatedDistanceToGoal(neighbor, end);
-
-                    relax(v, neighbor, weight, heuristic);
+                // Iterate over this vertices neighbor's and relax each edge
+                expanding = v;
+                expandingDistance = distanceTo.get(v);
+                if (listener != null) {
+                    timingHeuristic = listener.expanding(v, expandingDistance, fringe.size(), distanceTo.size());
                 }
+                if (incremental) {
+                    expandingHeuristic = input.estimatedDistanceToGoal(v, end);
+                }
+                input.forEachNeighbor(v, relaxNeighbor);
             }
         }
 
@@ -98,9 +146,29 @@ public class AStarSolver<Vertex> implements ShortestPathsSolver<Vertex> {
             outcome = SolverOutcome.TIMEOUT;
         }
         explorationTime = sw.elapsedTime();
+        if (listener != null) {
+            listener.finished(this);
+        }
+    }
+
+    private void relaxNeighbor(Vertex neighbor, double edgeWeight) {
+        //System.out.println("n = " + neighbor);
+        double weight = expandingDistance + edgeWeight;
+        long heuristicStart = timingHeuristic ? System.nanoTime() : 0;
+        double heuristic = incremental
+                ? expandingHeuristic + graph.heuristicDelta(expanding, neighbor, goal)
+                : graph.estimatedDistanceToGoal(neighbor, goal);
+        if (timingHeuristic) {
+            listener.heuristicTimed(System.nanoTime() - heuristicStart);
+        }
+
+        SearchListener.Relaxation result = relax(expanding, neighbor, weight, heuristic);
+        if (listener != null) {
+            listener.relaxed(expanding, neighbor, weight, result);
+        }
     }
 
-    private void relax(Vertex v, Vertex neighbor, double weight, double heuristic) {
+    private SearchListener.Relaxation relax(Vertex v, Vertex neighbor, double weight, double heuristic) {
         // If this neighbor as already been encountered
         if (visited.contains(neighbor)) {
             // check if the distance to that vertex when it was last encountered
@@ -114,8 +182,11 @@ public class AStarSolver<Vertex> implements ShortestPathsSolver<Vertex> {
                 // and if it was already in the fringe
                 if (fringe.contains(neighbor)) {
                     fringe.changePriority(neighbor, weight + heuristic);
+                    return SearchListener.Relaxation.DECREASED_KEY;
                 }
+                return SearchListener.Relaxation.IMPROVED_EXPANDED;
             }
+            return SearchListener.Relaxation.NOT_IMPROVED;
             // Otherwise, if this neighbor hasn't been encountered
         } else {
             // then store it's data
@@ -123,6 +194,7 @@ public class AStarSolver<Vertex> implements ShortestPathsSolver<Vertex> {
             distanceTo.put(neighbor, weight);
             visited.add(neighbor);
             fringe.add(neighbor, weight + heuristic);
+            return SearchListener.Relaxation.DISCOVERED;
         }
     }
 
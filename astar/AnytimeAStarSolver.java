@@ -0,0 +1,242 @@
+package astar;
+
+import edu.princeton.cs.algs4.Stopwatch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Solves with anytime repairing A* (ARA*): a series of weighted A* searches,
+ * whose priorities are the distance plus the heuristic times a weight, starting
+ * with a large weight, which finds some path quickly, and lowering it after each
+ * search until it reaches 1. Each search picks up where the last left off: only
+ * the vertices whose distances improved since they were last expanded are
+ * expanded again, so later searches are much cheaper than starting over.
+ *
+ * After every search the path found is kept along with a bound on how much
+ * heavier than the shortest path it can be, computed from the smallest
+ * unweighted priority among the vertices left to expand. If the timeout comes
+ * first, the solver still reports SOLVED with the best path found so far and its
+ * bound; it reports TIMEOUT only if it found no path at all. With a heuristic
+ * that never overestimates, a bound of 1 means the path is a shortest one.
+ *
+ * @see ShortestPathsSolver for more method documentation
+ */
+public class AnytimeAStarSolver<Vertex> implements ShortestPathsSolver<Vertex> {
+    /** Default weight of the heuristic in the first search. */
+    public static final double DEFAULT_INITIAL_WEIGHT = 3;
+    /** Default amount the weight is lowered by after each search. */
+    public static final double DEFAULT_WEIGHT_STEP = 0.5;
+
+    private final AStarGraph<Vertex> graph;
+    private final Vertex goal;
+    private final Stopwatch sw;
+    private final double timeout;
+
+    private final IndexedHeapMinPQ<Vertex> fringe = new IndexedHeapMinPQ<>();
+    private final HashMap<Vertex, Vertex> edgeTo = new HashMap<>();
+    private final HashMap<Vertex, Double> distanceTo = new HashMap<>();
+    // the weight of the edge from edgeTo, since a path's vertices may since have been reached by lighter
+    // paths, which leaves the distance of a vertex heavier than the path to it through edgeTo
+    private final HashMap<Vertex, Double> edgeWeightTo = new HashMap<>();
+    // computed once per vertex, since the priorities are redone for every weight
+    private final HashMap<Vertex, Double> heuristic = new HashMap<>();
+    // expanded in the current search, and improved after being expanded in it
+    private final HashSet<Vertex> closed = new HashSet<>();
+    private final HashSet<Vertex> inconsistent = new HashSet<>();
+    private double weight;
+
+    private SolverOutcome outcome;
+    private List<Vertex> solution;
+    private double solutionWeight;
+    private double suboptimalityBound = Double.POSITIVE_INFINITY;
+    private double explorationTime;
+    private int numStatesExplored;
+    private int searches;
+
+    /**
+     * Immediately runs ARA* search with the default weights until it finds a
+     * shortest path or times out, and stores the best path found, computing
+     * everything necessary for all other methods to return their results in
+     * constant time. The timeout is given in seconds.
+     */
+    public AnytimeAStarSolver(AStarGraph<Vertex> input, Vertex start, Vertex end, double timeout) {
+        this(input, start, end, timeout, DEFAULT_INITIAL_WEIGHT, DEFAULT_WEIGHT_STEP);
+    }
+
+    /** Same as above, but starts with the given heuristic weight and lowers it by the given step. */
+    public AnytimeAStarSolver(AStarGraph<Vertex> input, Vertex start, Vertex end, double timeout,
+                              double initialWeight, double weightStep) {
+        if (initialWeight < 1) {
+            throw new IllegalArgumentException("Initial weight must be at least 1.");
+        }
+        if (weightStep <= 0) {
+            throw new IllegalArgumentException("Weight step must be positive.");
+        }
+        sw = new Stopwatch();
+        this.graph = input;
+        this.goal = end;
+        this.timeout = timeout;
+        this.weight = initialWeight;
+        solution = new ArrayList<>();
+
+        distanceTo.put(start, 0d);
+        edgeTo.put(start, null);
+        fringe.add(start, priority(start));
+
+        while (true) {
+            searches++;
+            boolean finished = improvePath();
+            if (!finished) {
+                // keep whatever this search found so far; the last bound still holds for a lighter path,
+                // and a path found before any search finished has no bound
+                if (distanceTo.containsKey(goal)) {
+                    keepSolution(suboptimalityBound);
+                }
+                outcome = solution.isEmpty() ? SolverOutcome.TIMEOUT : SolverOutcome.SOLVED;
+                break;
+            }
+            if (!distanceTo.containsKey(goal)) {
+                outcome = SolverOutcome.UNSOLVABLE;
+                break;
+            }
+
+            // everything left to expand, whose smallest unweighted priority bounds the shortest path
+            List<Vertex> open = new ArrayList<>(inconsistent);
+            while (!fringe.isEmpty()) {
+                open.add(fringe.removeSmallest());
+            }
+            double lowerBound = Double.POSITIVE_INFINITY;
+            for (Vertex v : open) {
+                lowerBound = Math.min(lowerBound, distanceTo.get(v) + heuristic.get(v));
+            }
+            double goalDistance = distanceTo.get(goal);
+            keepSolution(lowerBound >= goalDistance ? 1 : Math.min(weight, goalDistance / lowerBound));
+            if (suboptimalityBound <= 1 || weight <= 1) {
+                outcome = SolverOutcome.SOLVED;
+                break;
+            }
+
+            weight = Math.max(1, weight - weightStep);
+            closed.clear();
+            inconsistent.clear();
+            for (Vertex v : open) {
+                fringe.add(v, priority(v));
+            }
+        }
+        explorationTime = sw.elapsedTime();
+    }
+
+    /**
+     * Runs weighted A* with the current weight until no vertex in the fringe has a
+     * smaller priority than the goal. Returns false if it timed out first.
+     */
+    private boolean improvePath() {
+        while (!fringe.isEmpty() && fringe.getSmallestPriority() < goalPriority()) {
+            if (sw.elapsedTime() >= timeout) {
+                return false;
+            }
+            Vertex v = fringe.removeSmallest();
+            closed.add(v);
+            numStatesExplored++;
+            double distance = distanceTo.get(v);
+            graph.forEachNeighbor(v, (neighbor, edgeWeight) -> {
+                double newDistance = distance + edgeWeight;
+                Double known = distanceTo.get(neighbor);
+                if (known != null && newDistance >= known) {
+                    return;
+                }
+                distanceTo.put(neighbor, newDistance);
+                edgeTo.put(neighbor, v);
+                edgeWeightTo.put(neighbor, edgeWeight);
+                if (closed.contains(neighbor)) {
+                    // left for the next search, which will have a smaller weight
+                    inconsistent.add(neighbor);
+                } else if (fringe.contains(neighbor)) {
+                    fringe.changePriority(neighbor, priority(neighbor));
+                } else {
+                    fringe.add(neighbor, priority(neighbor));
+                }
+            });
+        }
+        return true;
+    }
+
+    private double priority(Vertex v) {
+        Double h = heuristic.get(v);
+        if (h == null) {
+            h = graph.estimatedDistanceToGoal(v, goal);
+            heuristic.put(v, h);
+        }
+        return distanceTo.get(v) + weight * h;
+    }
+
+    private double goalPriority() {
+        return distanceTo.containsKey(goal) ? priority(goal) : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Copies out the path to the goal, since later searches may change edgeTo, if
+     * it is lighter than the one kept. Its weight is added up along its edges, and
+     * may be less than the goal's distance. Any bound found holds for both paths.
+     */
+    private void keepSolution(double bound) {
+        List<Vertex> path = new ArrayList<>();
+        double weight = 0;
+        for (Vertex v = goal; v != null; v = edgeTo.get(v)) {
+            path.add(0, v);
+            weight += edgeWeightTo.getOrDefault(v, 0d);
+        }
+        if (solution.isEmpty() || weight < solutionWeight) {
+            solution = path;
+            solutionWeight = weight;
+        }
+        suboptimalityBound = Math.min(suboptimalityBound, bound);
+    }
+
+    @Override
+    public SolverOutcome outcome() {
+        return outcome;
+    }
+
+    @Override
+    public List<Vertex> solution() {
+        return solution;
+    }
+
+    @Override
+    public double solutionWeight() {
+        return solutionWeight;
+    }
+
+    /**
+     * The most the solution's weight can be over the shortest path's weight, as a
+     * factor, or infinity if no solution was found. 1 means it is a shortest path.
+     */
+    public double suboptimalityBound() {
+        return suboptimalityBound;
+    }
+
+    /** The heuristic weight of the last search run. */
+    public double heuristicWeight() {
+        return weight;
+    }
+
+    /** The number of weighted searches run, including any cut off by the timeout. */
+    public int searches() {
+        return searches;
+    }
+
+    /** The total number of vertices expanded over all searches. */
+    @Override
+    public int numStatesExplored() {
+        return numStatesExplored;
+    }
+
+    @Override
+    public double explorationTime() {
+        return explorationTime;
+    }
+}
@@ -0,0 +1,192 @@
+package astar;
+
+import edu.princeton.cs.algs4.Stopwatch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Runs two A* searches at once, one forward from the start using the graph's
+ * neighbors and estimatedDistanceToGoal, and one backward from the goal using its
+ * reverse neighbors and estimatedDistanceFromStart. Each step expands a vertex
+ * of whichever search has the smaller fringe.
+ *
+ * Whenever one search reaches a vertex the other has also reached, the path
+ * through that vertex becomes a candidate. The search stops once the best
+ * candidate weighs no more than the smallest priority in either fringe: with
+ * heuristics that never overestimate, every path cheaper than the candidate
+ * would have a vertex of priority below it in both fringes. A vertex is reopened
+ * whenever a shorter path to it is found, so the heuristics need not be
+ * consistent.
+ *
+ * @see ShortestPathsSolver for more method documentation
+ */
+public class BidirectionalAStarSolver<Vertex> implements ShortestPathsSolver<Vertex> {
+    /** The state of the search in one direction. */
+    private final class Search {
+        private final boolean fromStart;
+        private final IndexedHeapMinPQ<Vertex> fringe = new IndexedHeapMinPQ<>();
+        private final HashMap<Vertex, Vertex> edgeTo = new HashMap<>();
+        private final HashMap<Vertex, Double> distanceTo = new HashMap<>();
+        private final AStarGraph.NeighborConsumer<Vertex> relaxNeighbor = this::relax;
+        private int statesExplored;
+
+        // the vertex being expanded and its distance from this search's root
+        private Vertex expanding;
+        private double expandingDistance;
+
+        private Search(boolean fromStart, Vertex root) {
+            this.fromStart = fromStart;
+            distanceTo.put(root, 0d);
+            edgeTo.put(root, null);
+            fringe.add(root, heuristic(root));
+        }
+
+        private double heuristic(Vertex v) {
+            return fromStart ? graph.estimatedDistanceToGoal(v, goal) : graph.estimatedDistanceFromStart(v, start);
+        }
+
+        private void expand() {
+            expanding = fringe.removeSmallest();
+            expandingDistance = distanceTo.get(expanding);
+            statesExplored++;
+            if (fromStart) {
+                graph.forEachNeighbor(expanding, relaxNeighbor);
+            } else {
+                graph.forEachReverseNeighbor(expanding, relaxNeighbor);
+            }
+        }
+
+        private void relax(Vertex neighbor, double edgeWeight) {
+            double weight = expandingDistance + edgeWeight;
+            Double known = distanceTo.get(neighbor);
+            if (known != null && weight >= known) {
+                return;
+            }
+            distanceTo.put(neighbor, weight);
+            edgeTo.put(neighbor, expanding);
+            double priority = weight + heuristic(neighbor);
+            if (fringe.contains(neighbor)) {
+                fringe.changePriority(neighbor, priority);
+            } else {
+                // either new, or reopened because of the shorter path
+                fringe.add(neighbor, priority);
+            }
+
+            // a path through neighbor if the other search has reached it too
+            Double across = (fromStart ? backward : forward).distanceTo.get(neighbor);
+            if (across != null && weight + across < bestWeight) {
+                bestWeight = weight + across;
+                meeting = neighbor;
+            }
+        }
+
+        /** Returns the path from this search's root to v, root first. */
+        private List<Vertex> pathTo(Vertex v) {
+            List<Vertex> path = new ArrayList<>();
+            for (Vertex u = v; u != null; u = edgeTo.get(u)) {
+                path.add(u);
+            }
+            Collections.reverse(path);
+            return path;
+        }
+    }
+
+    private final ReversibleAStarGraph<Vertex> graph;
+    private final Vertex start;
+    private final Vertex goal;
+    private final Search forward;
+    private final Search backward;
+
+    // the lightest path found so far goes through meeting and weighs bestWeight
+    private double bestWeight = Double.POSITIVE_INFINITY;
+    private Vertex meeting;
+
+    private SolverOutcome outcome;
+    private List<Vertex> solution;
+    private double solutionWeight;
+    private double explorationTime;
+
+    /**
+     * Immediately solves and stores the result of running bidirectional A*
+     * search, computing everything necessary for all other methods to return
+     * their results in constant time. The timeout is given in seconds.
+     */
+    public BidirectionalAStarSolver(ReversibleAStarGraph<Vertex> input, Vertex start, Vertex end, double timeout) {
+        Stopwatch sw = new Stopwatch();
+        this.graph = input;
+        this.start = start;
+        this.goal = end;
+        this.forward = new Search(true, start);
+        this.backward = new Search(false, end);
+        solution = new ArrayList<>();
+        if (start.equals(end)) {
+            bestWeight = 0;
+            meeting = start;
+        }
+
+        while (outcome == null) {
+            if (forward.fringe.isEmpty() || backward.fringe.isEmpty()) {
+                // one search has seen everything it can reach, and found any path there is
+                outcome = meeting != null ? SolverOutcome.SOLVED : SolverOutcome.UNSOLVABLE;
+            } else if (meeting != null && bestWeight <= Math.max(forward.fringe.getSmallestPriority(),
+                                                                 backward.fringe.getSmallestPriority())) {
+                outcome = SolverOutcome.SOLVED;
+            } else if (sw.elapsedTime() >= timeout) {
+                outcome = SolverOutcome.TIMEOUT;
+            } else if (forward.fringe.size() <= backward.fringe.size()) {
+                forward.expand();
+            } else {
+                backward.expand();
+            }
+        }
+
+        if (outcome == SolverOutcome.SOLVED) {
+            solutionWeight = bestWeight;
+            solution = forward.pathTo(meeting);
+            List<Vertex> rest = backward.pathTo(meeting);
+            for (int i = rest.size() - 2; i >= 0; i--) {
+                solution.add(rest.get(i));
+            }
+        }
+        explorationTime = sw.elapsedTime();
+    }
+
+    @Override
+    public SolverOutcome outcome() {
+        return outcome;
+    }
+
+    @Override
+    public List<Vertex> solution() {
+        return solution;
+    }
+
+    @Override
+    public double solutionWeight() {
+        return solutionWeight;
+    }
+
+    /** The total number of vertices expanded by both searches. */
+    @Override
+    public int numStatesExplored() {
+        return forward.statesExplored + backward.statesExplored;
+    }
+
+    /** The number of vertices expanded by the search from the start. */
+    public int forwardStatesExplored() {
+        return forward.statesExplored;
+    }
+
+    /** The number of vertices expanded by the search from the goal. */
+    public int backwardStatesExplored() {
+        return backward.statesExplored;
+    }
+
+    @Override
+    public double explorationTime() {
+        return explorationTime;
+    }
+}
@@ -0,0 +1,70 @@
+package astar;
+
+import astar.slidingpuzzle.BoardGraph;
+import astar.slidingpuzzle.BoardState;
+import astar.wordladderpuzzle.WordGraph;
+import pq.ExtrinsicMinPQ;
+import pq.TreeMapMinPQ;
+
+import java.util.function.Supplier;
+
+/**
+ * Compares AStarSolver's running time with a TreeMapMinPQ fringe and with binary
+ * and 4-ary IndexedHeapMinPQ fringes, on the puzzles of the sliding puzzle and
+ * word ladder demos. Each search is repeated a few times and the fastest run is
+ * reported, to leave out JIT warm-up.
+ */
+public class FringeBenchmark {
+    private static final int REPEATS = 3;
+    private static final double TIMEOUT = 60;
+
+    private static final String[] PUZZLES = {
+        "BasicPuzzle1.txt",
+        "HardPuzzle1.txt",
+        "HardPuzzle2.txt",
+        "HardPuzzle3.txt",
+    };
+
+    private static final String[][] LADDERS = {
+        {"horse", "nurse"},
+        {"stone", "apple"},
+        {"dream", "sleep"},
+    };
+
+    public static void main(String[] args) {
+        System.out.printf("%-24s %14s %14s %14s\n", "search", "TreeMapMinPQ", "binary heap", "4-ary heap");
+
+        BoardGraph spg = new BoardGraph();
+        for (String puzzle : PUZZLES) {
+            BoardState start = BoardState.readBoard("data/puzzles/" + puzzle);
+            BoardState goal = BoardState.solved(start.size());
+            compare(puzzle, spg, start, goal);
+        }
+
+        WordGraph wg = WordGraph.readWords("data/puzzles/words10000.txt");
+        for (String[] ladder : LADDERS) {
+            compare(ladder[0] + " -> " + ladder[1], wg, ladder[0], ladder[1]);
+        }
+    }
+
+    private static <Vertex> void compare(String name, AStarGraph<Vertex> graph, Vertex start, Vertex goal) {
+        double treeMap = bestTime(graph, start, goal, TreeMapMinPQ::new);
+        double binary = bestTime(graph, start, goal, () -> new IndexedHeapMinPQ<>(2));
+        double quaternary = bestTime(graph, start, goal, () -> new IndexedHeapMinPQ<>(4));
+        System.out.printf("%-24s %13.3fs %13.3fs %13.3fs   (%.2fx, %.2fx)\n",
+                          name, treeMap, binary, quaternary, treeMap / binary, treeMap / quaternary);
+    }
+
+    private static <Vertex> double bestTime(AStarGraph<Vertex> graph, Vertex start, Vertex goal,
+                                            Supplier<? extends ExtrinsicMinPQ<Vertex>> fringe) {
+        double best = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < REPEATS; i++) {
+            AStarSolver<Vertex> solver = new AStarSolver<>(graph, start, goal, TIMEOUT, fringe);
+            if (solver.outcome() != ShortestPathsSolver.SolverOutcome.SOLVED) {
+                System.out.println("  " + solver.outcome() + " after " + solver.numStatesExplored() + " states");
+            }
+            best = Math.min(best, solver.explorationTime());
+        }
+        return best;
+    }
+}
@@ -0,0 +1,268 @@
+package astar;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Answers queries toward the same goal without searching again. The first time
+ * a goal is asked about, Dijkstra's algorithm runs backward from it over the
+ * reverse edges, finding the exact distance from every vertex that can reach
+ * the goal and the next vertex on a shortest path from each. After that, a
+ * query from any start takes time proportional to the length of its path.
+ *
+ * The trees of the most recently used goals are kept, up to a number of bytes
+ * estimated from the number of vertices in them; the least recently used ones
+ * are dropped to make room. A tree larger than the whole budget is returned but
+ * not kept. The distances can also serve as a perfect heuristic, through
+ * perfectHeuristicGraph.
+ *
+ * Edge weights must not be negative. The cache is thread-safe; a tree is built
+ * outside the lock, so two threads asking for a new goal at once may both
+ * build it.
+ */
+public class GoalDistanceCache<Vertex> {
+    /**
+     * A rough number of bytes a tree keeps per vertex: a HashMap entry and a node
+     * holding the distance and next vertex, on a 64-bit JVM with compressed
+     * pointers. The vertices themselves are not included.
+     */
+    public static final int BYTES_PER_VERTEX = 72;
+
+    /** The shortest paths from every vertex that can reach one goal. */
+    public static final class GoalTree<Vertex> {
+        /** A vertex's distance to the goal and the next vertex on its way there. */
+        private static final class Node<Vertex> {
+            private final double distance;
+            private final Vertex next;
+
+            private Node(double distance, Vertex next) {
+                this.distance = distance;
+                this.next = next;
+            }
+        }
+
+        private final Vertex goal;
+        private final HashMap<Vertex, Node<Vertex>> nodes;
+
+        private GoalTree(ReversibleAStarGraph<Vertex> graph, Vertex goal) {
+            this.goal = goal;
+            HashMap<Vertex, Node<Vertex>> settled = new HashMap<>();
+            HashMap<Vertex, Node<Vertex>> reached = new HashMap<>();
+            IndexedHeapMinPQ<Vertex> fringe = new IndexedHeapMinPQ<>();
+            reached.put(goal, new Node<>(0, null));
+            fringe.add(goal, 0);
+            while (!fringe.isEmpty()) {
+                Vertex v = fringe.removeSmallest();
+                Node<Vertex> node = reached.remove(v);
+                settled.put(v, node);
+                graph.forEachReverseNeighbor(v, (from, weight) -> {
+                    if (settled.containsKey(from)) {
+                        return;
+                    }
+                    double distance = node.distance + weight;
+                    Node<Vertex> known = reached.get(from);
+                    if (known == null) {
+                        reached.put(from, new Node<>(distance, v));
+                        fringe.add(from, distance);
+                    } else if (distance < known.distance) {
+                        reached.put(from, new Node<>(distance, v));
+                        fringe.changePriority(from, distance);
+                    }
+                });
+            }
+            this.nodes = settled;
+        }
+
+        public Vertex goal() {
+            return goal;
+        }
+
+        /** Returns the distance from v to the goal, or infinity if the goal cannot be reached from v. */
+        public double distanceFrom(Vertex v) {
+            Node<Vertex> node = nodes.get(v);
+            return node == null ? Double.POSITIVE_INFINITY : node.distance;
+        }
+
+        /** Returns a shortest path from start to the goal, or an empty list if there is none. */
+        public List<Vertex> pathFrom(Vertex start) {
+            List<Vertex> path = new ArrayList<>();
+            if (!nodes.containsKey(start)) {
+                return path;
+            }
+            for (Vertex v = start; v != null; v = nodes.get(v).next) {
+                path.add(v);
+            }
+            return path;
+        }
+
+        /** The number of vertices that can reach the goal, all of which are kept. */
+        public int size() {
+            return nodes.size();
+        }
+    }
+
+    /** The answer to a query, found in a tree. */
+    private static final class CachedSolution<Vertex> implements ShortestPathsSolver<Vertex> {
+        private final List<Vertex> solution;
+        private final double solutionWeight;
+        private final double explorationTime;
+
+        private CachedSolution(List<Vertex> solution, double solutionWeight, double explorationTime) {
+            this.solution = solution;
+            this.solutionWeight = solutionWeight;
+            this.explorationTime = explorationTime;
+        }
+
+        @Override
+        public SolverOutcome outcome() {
+            return solution.isEmpty() ? SolverOutcome.UNSOLVABLE : SolverOutcome.SOLVED;
+        }
+
+        @Override
+        public List<Vertex> solution() {
+            return solution;
+        }
+
+        @Override
+        public double solutionWeight() {
+            return solution.isEmpty() ? 0 : solutionWeight;
+        }
+
+        /** Always 0, since answering a query from a tree explores nothing. */
+        @Override
+        public int numStatesExplored() {
+            return 0;
+        }
+
+        @Override
+        public double explorationTime() {
+            return explorationTime;
+        }
+    }
+
+    private final ReversibleAStarGraph<Vertex> graph;
+    private final long maxVertices;
+
+    // guarded by this; in order of use, least recent first
+    private final LinkedHashMap<Vertex, GoalTree<Vertex>> trees = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedVertices;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /** Creates a cache of trees on the graph that keeps about maxBytes of them. */
+    public GoalDistanceCache(ReversibleAStarGraph<Vertex> graph, long maxBytes) {
+        if (graph == null) {
+            throw new NullPointerException("Graph cannot be null.");
+        }
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Memory budget cannot be negative.");
+        }
+        this.graph = graph;
+        this.maxVertices = maxBytes / BYTES_PER_VERTEX;
+    }
+
+    /** Returns the tree of shortest paths to the goal, building it if it is not cached. */
+    public GoalTree<Vertex> treeFor(Vertex goal) {
+        synchronized (this) {
+            GoalTree<Vertex> tree = trees.get(goal);
+            if (tree != null) {
+                hits++;
+                return tree;
+            }
+            misses++;
+        }
+        GoalTree<Vertex> tree = new GoalTree<>(graph, goal);
+        synchronized (this) {
+            if (tree.size() > maxVertices || trees.containsKey(goal)) {
+                return tree;
+            }
+            trees.put(goal, tree);
+            cachedVertices += tree.size();
+            Iterator<GoalTree<Vertex>> leastRecent = trees.values().iterator();
+            while (cachedVertices > maxVertices) {
+                cachedVertices -= leastRecent.next().size();
+                leastRecent.remove();
+                evictions++;
+            }
+        }
+        return tree;
+    }
+
+    /** Answers the query from the goal's tree, building the tree first if it is not cached. */
+    public ShortestPathsSolver<Vertex> solve(Vertex start, Vertex goal) {
+        long begin = System.nanoTime();
+        GoalTree<Vertex> tree = treeFor(goal);
+        List<Vertex> path = tree.pathFrom(start);
+        return new CachedSolution<>(path, tree.distanceFrom(start), (System.nanoTime() - begin) / 1e9);
+    }
+
+    /**
+     * Returns a view of the graph whose heuristic is the exact distance to the
+     * goal, from the goal's tree. With it AStarSolver expands only vertices on
+     * shortest paths, apart from ties.
+     */
+    public AStarGraph<Vertex> perfectHeuristicGraph() {
+        return new AStarGraph<>() {
+            // the tree of the last goal asked about
+            private volatile GoalTree<Vertex> last;
+
+            @Override
+            public List<WeightedEdge<Vertex>> neighbors(Vertex v) {
+                return graph.neighbors(v);
+            }
+
+            @Override
+            public void forEachNeighbor(Vertex v, NeighborConsumer<Vertex> action) {
+                graph.forEachNeighbor(v, action);
+            }
+
+            @Override
+            public double estimatedDistanceToGoal(Vertex s, Vertex goal) {
+                GoalTree<Vertex> tree = last;
+                if (tree == null || !tree.goal().equals(goal)) {
+                    tree = treeFor(goal);
+                    last = tree;
+                }
+                return tree.distanceFrom(s);
+            }
+        };
+    }
+
+    /** The number of goals whose trees are cached. */
+    public synchronized int cachedGoals() {
+        return trees.size();
+    }
+
+    /** The total number of vertices in the cached trees. */
+    public synchronized long cachedVertices() {
+        return cachedVertices;
+    }
+
+    /** An estimate of the memory the cached trees take, in bytes. */
+    public synchronized long estimatedBytes() {
+        return cachedVertices * BYTES_PER_VERTEX;
+    }
+
+    public synchronized long hits() {
+        return hits;
+    }
+
+    public synchronized long misses() {
+        return misses;
+    }
+
+    /** The number of trees dropped to stay within the memory budget. */
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    /** Drops every cached tree. */
+    public synchronized void clear() {
+        trees.clear();
+        cachedVertices = 0;
+    }
+}
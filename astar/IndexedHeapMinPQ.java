@@ -0,0 +1,240 @@
+package astar;
+
+import pq.ExtrinsicMinPQ;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * An ExtrinsicMinPQ backed by a d-ary heap stored in parallel arrays: the items,
+ * and their priorities as primitive doubles. An open-addressing hash index maps
+ * each item to its position in the heap, so contains is O(1) and changePriority
+ * is O(log n), and nothing is allocated per operation except when growing.
+ *
+ * The default arity of 4 keeps a node's children next to each other in memory
+ * and makes the heap half as deep as a binary heap, at the cost of comparing
+ * more children on each step down.
+ */
+public class IndexedHeapMinPQ<T> implements ExtrinsicMinPQ<T> {
+    /** Default number of children per heap node. */
+    public static final int DEFAULT_ARITY = 4;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int arity;
+
+    // the heap: items[i] has priority priorities[i], and the children of i are at arity * i + 1 and up
+    private Object[] items;
+    private double[] priorities;
+    private int size;
+
+    // open-addressing index from item to heap position, with linear probing; a null key is empty
+    private Object[] keys;
+    private int[] positions;
+
+    public IndexedHeapMinPQ() {
+        this(DEFAULT_ARITY);
+    }
+
+    public IndexedHeapMinPQ(int arity) {
+        if (arity < 2) {
+            throw new IllegalArgumentException("Arity must be at least 2.");
+        }
+        this.arity = arity;
+        items = new Object[INITIAL_CAPACITY];
+        priorities = new double[INITIAL_CAPACITY];
+        keys = new Object[2 * INITIAL_CAPACITY];
+        positions = new int[2 * INITIAL_CAPACITY];
+    }
+
+    @Override
+    public void add(T item, double priority) {
+        if (item == null) {
+            throw new IllegalArgumentException("Item cannot be null.");
+        }
+        if (contains(item)) {
+            throw new IllegalArgumentException("Already contains " + item);
+        }
+        if (size == items.length) {
+            items = Arrays.copyOf(items, 2 * size);
+            priorities = Arrays.copyOf(priorities, 2 * size);
+        }
+        if (2 * (size + 1) > keys.length) {
+            rehash(2 * keys.length);
+        }
+
+        items[size] = item;
+        priorities[size] = priority;
+        put(item, size);
+        size++;
+        siftUp(size - 1);
+    }
+
+    @Override
+    public boolean contains(T item) {
+        return item != null && slot(item) >= 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T getSmallest() {
+        if (size == 0) {
+            throw new NoSuchElementException("PQ is empty");
+        }
+        return (T) items[0];
+    }
+
+    /** Returns the priority of the smallest item. */
+    public double getSmallestPriority() {
+        if (size == 0) {
+            throw new NoSuchElementException("PQ is empty");
+        }
+        return priorities[0];
+    }
+
+    @Override
+    public T removeSmallest() {
+        T smallest = getSmallest();
+        remove(smallest);
+        size--;
+        if (size > 0) {
+            move(size, 0);
+            siftDown(0);
+        }
+        items[size] = null;
+        return smallest;
+    }
+
+    @Override
+    public void changePriority(T item, double priority) {
+        int s = item == null ? -1 : slot(item);
+        if (s < 0) {
+            throw new NoSuchElementException("PQ does not contain " + item);
+        }
+        int i = positions[s];
+        double old = priorities[i];
+        priorities[i] = priority;
+        if (priority < old) {
+            siftUp(i);
+        } else {
+            siftDown(i);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /** Moves the item at i up until its parent is no larger. */
+    private void siftUp(int i) {
+        Object item = items[i];
+        double priority = priorities[i];
+        while (i > 0) {
+            int parent = (i - 1) / arity;
+            if (priorities[parent] <= priority) {
+                break;
+            }
+            move(parent, i);
+            i = parent;
+        }
+        place(item, priority, i);
+    }
+
+    /** Moves the item at i down until none of its children is smaller. */
+    private void siftDown(int i) {
+        Object item = items[i];
+        double priority = priorities[i];
+        while (true) {
+            int first = arity * i + 1;
+            if (first >= size) {
+                break;
+            }
+            int last = Math.min(first + arity, size);
+            int smallest = first;
+            for (int c = first + 1; c < last; c++) {
+                if (priorities[c] < priorities[smallest]) {
+                    smallest = c;
+                }
+            }
+            if (priorities[smallest] >= priority) {
+                break;
+            }
+            move(smallest, i);
+            i = smallest;
+        }
+        place(item, priority, i);
+    }
+
+    /** Copies the heap entry at from to to, updating the index. */
+    private void move(int from, int to) {
+        items[to] = items[from];
+        priorities[to] = priorities[from];
+        positions[slot(items[to])] = to;
+    }
+
+    private void place(Object item, double priority, int i) {
+        items[i] = item;
+        priorities[i] = priority;
+        positions[slot(item)] = i;
+    }
+
+    /** Returns the index slot holding the item, or -1 if it is not in the index. */
+    private int slot(Object item) {
+        int mask = keys.length - 1;
+        for (int s = hash(item) & mask; keys[s] != null; s = (s + 1) & mask) {
+            if (keys[s].equals(item)) {
+                return s;
+            }
+        }
+        return -1;
+    }
+
+    private void put(Object item, int position) {
+        int mask = keys.length - 1;
+        int s = hash(item) & mask;
+        while (keys[s] != null) {
+            s = (s + 1) & mask;
+        }
+        keys[s] = item;
+        positions[s] = position;
+    }
+
+    /**
+     * Removes the item from the index, shifting back later entries of its probe run
+     * so that lookups never stop early at the hole.
+     */
+    private void remove(Object item) {
+        int mask = keys.length - 1;
+        int hole = slot(item);
+        for (int s = (hole + 1) & mask; keys[s] != null; s = (s + 1) & mask) {
+            int home = hash(keys[s]) & mask;
+            // move the entry into the hole unless its home lies cyclically in (hole, s]
+            boolean between = hole <= s ? hole < home && home <= s : hole < home || home <= s;
+            if (!between) {
+                keys[hole] = keys[s];
+                positions[hole] = positions[s];
+                hole = s;
+            }
+        }
+        keys[hole] = null;
+    }
+
+    private void rehash(int capacity) {
+        Object[] oldKeys = keys;
+        int[] oldPositions = positions;
+        keys = new Object[capacity];
+        positions = new int[capacity];
+        for (int s = 0; s < oldKeys.length; s++) {
+            if (oldKeys[s] != null) {
+                put(oldKeys[s], oldPositions[s]);
+            }
+        }
+    }
+
+    /** Spreads the high bits of the hash code, which linear probing would otherwise ignore. */
+    private static int hash(Object item) {
+        int h = item.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,26 @@
+package astar;
+
+/**
+ * A graph whose vertices are the ints 0 to numVertices() - 1, for IntAStarSolver.
+ * The outgoing edges of a vertex are numbered 0 to outDegree(v) - 1, and are read
+ * one field at a time so that no edge objects need to be created.
+ */
+public interface IntAStarGraph {
+    /** Returns the number of vertices in the graph. */
+    int numVertices();
+
+    /** Returns the number of outgoing edges from the given vertex. */
+    int outDegree(int v);
+
+    /** Returns the vertex that the i-th outgoing edge from v leads to. */
+    int neighbor(int v, int i);
+
+    /** Returns the weight of the i-th outgoing edge from v. */
+    double weight(int v, int i);
+
+    /**
+     *  Returns an estimated distance from vertex s to the goal vertex according to
+     *  the A* heuristic function for this graph.
+     */
+    double estimatedDistanceToGoal(int s, int goal);
+}
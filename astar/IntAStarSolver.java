@@ -0,0 +1,136 @@
+package astar;
+
+import edu.princeton.cs.algs4.Stopwatch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The same A* search as AStarSolver, for graphs whose vertices are ints. All of
+ * the per-vertex state lives in arrays indexed by vertex and the fringe is an
+ * IntIndexedMinPQ, so the search does no hashing or boxing at all; only the
+ * final solution list holds Integers.
+ *
+ * @see ShortestPathsSolver for more method documentation
+ */
+public class IntAStarSolver implements ShortestPathsSolver<Integer> {
+    /** Number of children per node of the fringe's heap. */
+    private static final int FRINGE_ARITY = 4;
+
+    IntIndexedMinPQ fringe;
+    BitSet visited;
+
+    int[] edgeTo;
+    double[] distanceTo;
+
+    SolverOutcome outcome;
+    List<Integer> solution;
+    double solutionWeight;
+    double explorationTime;
+    int numStatesExplored;
+
+    /**
+     * Immediately solves and stores the result of running A* search, computing
+     * everything necessary for all other methods to return their results in
+     * constant time. The timeout is given in seconds.
+     */
+    public IntAStarSolver(IntAStarGraph input, int start, int end, double timeout) {
+        Stopwatch sw = new Stopwatch();
+
+        int n = input.numVertices();
+        if (start < 0 || start >= n || end < 0 || end >= n) {
+            throw new IllegalArgumentException("Start and end must be vertices of the graph.");
+        }
+
+        solution = new ArrayList<>();
+        fringe = new IntIndexedMinPQ(n, FRINGE_ARITY);
+        visited = new BitSet(n);
+        edgeTo = new int[n];
+        distanceTo = new double[n];
+        Arrays.fill(distanceTo, Double.POSITIVE_INFINITY);
+        numStatesExplored = 0;
+
+        fringe.add(start, input.estimatedDistanceToGoal(start, end));
+        visited.set(start);
+        edgeTo[start] = -1;
+        distanceTo[start] = 0;
+
+        while (!fringe.isEmpty() && sw.elapsedTime() < timeout) {
+            int v = fringe.removeSmallest();
+
+            if (v == end) {
+                solutionWeight = distanceTo[v];
+                for (int u = v; u != -1; u = edgeTo[u]) {
+                    solution.add(u);
+                }
+                Collections.reverse(solution);
+
+                outcome = SolverOutcome.SOLVED;
+                explorationTime = sw.elapsedTime();
+                return;
+            }
+
+            numStatesExplored++;
+            int degree = input.outDegree(v);
+            for (int i = 0; i < degree; i++) {
+                int neighbor = input.neighbor(v, i);
+                double weight = distanceTo[v] + input.weight(v, i);
+                relax(input, v, neighbor, end, weight);
+            }
+        }
+
+        if (fringe.isEmpty()) {
+            outcome = SolverOutcome.UNSOLVABLE;
+        } else {
+            outcome = SolverOutcome.TIMEOUT;
+        }
+        explorationTime = sw.elapsedTime();
+    }
+
+    private void relax(IntAStarGraph input, int v, int neighbor, int end, double weight) {
+        if (visited.get(neighbor)) {
+            // like AStarSolver, a shorter path only changes the priority of vertices still in the fringe
+            if (weight < distanceTo[neighbor]) {
+                distanceTo[neighbor] = weight;
+                edgeTo[neighbor] = v;
+                if (fringe.contains(neighbor)) {
+                    fringe.changePriority(neighbor, weight + input.estimatedDistanceToGoal(neighbor, end));
+                }
+            }
+        } else {
+            edgeTo[neighbor] = v;
+            distanceTo[neighbor] = weight;
+            visited.set(neighbor);
+            fringe.add(neighbor, weight + input.estimatedDistanceToGoal(neighbor, end));
+        }
+    }
+
+    @Override
+    public SolverOutcome outcome() {
+        return outcome;
+    }
+
+    @Override
+    public List<Integer> solution() {
+        return solution;
+    }
+
+    @Override
+    public double solutionWeight() {
+        return solutionWeight;
+    }
+
+    /** The total number of priority queue removeSmallest operations. */
+    @Override
+    public int numStatesExplored() {
+        return numStatesExplored;
+    }
+
+    @Override
+    public double explorationTime() {
+        return explorationTime;
+    }
+}
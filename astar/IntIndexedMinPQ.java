@@ -0,0 +1,124 @@
+package astar;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A min priority queue of the ints 0 to capacity - 1 with primitive double
+ * priorities, stored as a d-ary heap. The position of every int in the heap is
+ * kept in an array indexed by the int itself, so contains is O(1) and
+ * changePriority is O(log n) without any hashing or boxing.
+ */
+class IntIndexedMinPQ {
+    private static final int INITIAL_HEAP_SIZE = 16;
+
+    private final int arity;
+    // position[v] is v's index in the heap, or -1 if v is not in the queue
+    private final int[] position;
+    private int[] heap;
+    private double[] priorities;
+    private int size;
+
+    IntIndexedMinPQ(int capacity, int arity) {
+        if (arity < 2) {
+            throw new IllegalArgumentException("Arity must be at least 2.");
+        }
+        this.arity = arity;
+        position = new int[capacity];
+        Arrays.fill(position, -1);
+        int initial = Math.max(1, Math.min(capacity, INITIAL_HEAP_SIZE));
+        heap = new int[initial];
+        priorities = new double[initial];
+    }
+
+    void add(int v, double priority) {
+        if (position[v] >= 0) {
+            throw new IllegalArgumentException("Already contains " + v);
+        }
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, 2 * size);
+            priorities = Arrays.copyOf(priorities, 2 * size);
+        }
+        size++;
+        siftUp(size - 1, v, priority);
+    }
+
+    boolean contains(int v) {
+        return position[v] >= 0;
+    }
+
+    int removeSmallest() {
+        if (size == 0) {
+            throw new NoSuchElementException("PQ is empty");
+        }
+        int smallest = heap[0];
+        position[smallest] = -1;
+        size--;
+        if (size > 0) {
+            siftDown(0, heap[size], priorities[size]);
+        }
+        return smallest;
+    }
+
+    void changePriority(int v, double priority) {
+        int i = position[v];
+        if (i < 0) {
+            throw new NoSuchElementException("PQ does not contain " + v);
+        }
+        if (priority < priorities[i]) {
+            siftUp(i, v, priority);
+        } else {
+            siftDown(i, v, priority);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Puts v with the given priority at i, or above it if its parents are larger. */
+    private void siftUp(int i, int v, double priority) {
+        while (i > 0) {
+            int parent = (i - 1) / arity;
+            if (priorities[parent] <= priority) {
+                break;
+            }
+            set(i, heap[parent], priorities[parent]);
+            i = parent;
+        }
+        set(i, v, priority);
+    }
+
+    /** Puts v with the given priority at i, or below it if any of its children are smaller. */
+    private void siftDown(int i, int v, double priority) {
+        while (true) {
+            int first = arity * i + 1;
+            if (first >= size) {
+                break;
+            }
+            int last = Math.min(first + arity, size);
+            int smallest = first;
+            for (int c = first + 1; c < last; c++) {
+                if (priorities[c] < priorities[smallest]) {
+                    smallest = c;
+                }
+            }
+            if (priorities[smallest] >= priority) {
+                break;
+            }
+            set(i, heap[smallest], priorities[smallest]);
+            i = smallest;
+        }
+        set(i, v, priority);
+    }
+
+    private void set(int i, int v, double priority) {
+        heap[i] = v;
+        priorities[i] = priority;
+        position[v] = i;
+    }
+}
@@ -0,0 +1,370 @@
+package astar;
+
+import edu.princeton.cs.algs4.Stopwatch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs hash-distributed A* (HDA*) on several threads. Each vertex is owned by
+ * one worker, chosen by a hash of the vertex, and only its owner keeps its
+ * distance, puts it in a fringe or expands it. A worker that reaches a vertex
+ * owned by another sends it there, in batches through a lock-free queue, so the
+ * workers share nothing but those queues and a few counters.
+ *
+ * The workers don't expand vertices in exactly the order of their priorities,
+ * so a vertex may be reached by a shorter path after it was expanded; it is
+ * then reopened. The lightest path to the goal found so far is kept, and every
+ * vertex with a priority no smaller than its weight is ignored. The search is
+ * over once no worker has a vertex left with a smaller priority and no vertex is
+ * on its way to another worker, which pending counts: it holds the number of
+ * busy workers plus the number of vertices sent but not yet received. Since a
+ * worker marks itself busy before it takes a batch off the count, the count
+ * only reaches zero when there is no work left anywhere.
+ *
+ * The graph is used by all workers at once, so it must be safe to read from
+ * several threads. If it throws in any worker, the search stops and the
+ * constructor throws the first such exception once every worker has ended.
+ *
+ * @see ShortestPathsSolver for more method documentation
+ */
+public class ParallelAStarSolver<Vertex> implements ShortestPathsSolver<Vertex> {
+    private static final int BATCH_SIZE = 64;
+    // each worker sends its unfilled batches after this many expansions
+    private static final int FLUSH_INTERVAL = 32;
+    private static final int TIME_CHECK_INTERVAL = 1024;
+    // an idle worker spins this many times before parking between checks
+    private static final int IDLE_SPINS = 64;
+    private static final long IDLE_PARK_NANOS = 20_000;
+
+    /** The best known path to a vertex, kept by its owner. */
+    private static final class Node<Vertex> {
+        private double distance;
+        private Vertex parent;
+    }
+
+    /** A vertex reached from parent by a path of the given weight, for the vertex's owner. */
+    private static final class Message<Vertex> {
+        private final Vertex vertex;
+        private final Vertex parent;
+        private final double distance;
+
+        private Message(Vertex vertex, Vertex parent, double distance) {
+            this.vertex = vertex;
+            this.parent = parent;
+            this.distance = distance;
+        }
+    }
+
+    /** One thread of the search, with the fringe and distances of the vertices it owns. */
+    private final class Worker implements Runnable {
+        private final int index;
+        private final IndexedHeapMinPQ<Vertex> fringe = new IndexedHeapMinPQ<>();
+        private final HashMap<Vertex, Node<Vertex>> nodes = new HashMap<>();
+        private final ConcurrentLinkedQueue<List<Message<Vertex>>> inbox = new ConcurrentLinkedQueue<>();
+        // the batch being filled for each worker
+        private final List<List<Message<Vertex>>> outbox = new ArrayList<>();
+        private final AStarGraph.NeighborConsumer<Vertex> relaxNeighbor = this::relax;
+        private final Thread thread;
+        // busy workers are counted in pending
+        private boolean busy = true;
+        private int statesExplored;
+
+        private Vertex expanding;
+        private double expandingDistance;
+
+        private Worker(int index) {
+            this.index = index;
+            this.thread = new Thread(this, "astar-worker-" + index);
+        }
+
+        @Override
+        public void run() {
+            try {
+                search();
+            } catch (Throwable e) {
+                // a dead worker would stay counted in pending, so the others must not wait on it
+                failure.compareAndSet(null, e);
+                stopped = true;
+            }
+        }
+
+        private void search() {
+            for (int i = 0; i < workers.size(); i++) {
+                outbox.add(new ArrayList<>(BATCH_SIZE));
+            }
+            int untilFlush = FLUSH_INTERVAL;
+            int untilTimeCheck = TIME_CHECK_INTERVAL;
+            int idleRounds = 0;
+            while (!stopped) {
+                receiveAll();
+                if (--untilTimeCheck == 0) {
+                    untilTimeCheck = TIME_CHECK_INTERVAL;
+                    if (sw.elapsedTime() >= timeout) {
+                        timedOut = true;
+                        stopped = true;
+                    }
+                }
+
+                if (!fringe.isEmpty() && fringe.getSmallestPriority() < bestWeight()) {
+                    expand();
+                    idleRounds = 0;
+                    if (--untilFlush == 0) {
+                        untilFlush = FLUSH_INTERVAL;
+                        sendAll();
+                    }
+                    continue;
+                }
+
+                // nothing useful to expand until another worker sends something
+                sendAll();
+                if (busy) {
+                    busy = false;
+                    if (pending.decrementAndGet() == 0) {
+                        stopped = true;
+                    }
+                } else if (pending.get() == 0) {
+                    stopped = true;
+                }
+                if (++idleRounds < IDLE_SPINS) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            }
+        }
+
+        private void receiveAll() {
+            List<Message<Vertex>> batch;
+            while ((batch = inbox.poll()) != null) {
+                if (!busy) {
+                    busy = true;
+                    pending.incrementAndGet();
+                }
+                for (Message<Vertex> m : batch) {
+                    receive(m.vertex, m.parent, m.distance);
+                }
+                pending.addAndGet(-batch.size());
+            }
+        }
+
+        /** Records the path to v if it is the shortest yet, and puts v in the fringe if it could help. */
+        private void receive(Vertex v, Vertex parent, double distance) {
+            Node<Vertex> node = nodes.get(v);
+            if (node != null && distance >= node.distance) {
+                return;
+            }
+            if (node == null) {
+                node = new Node<>();
+                nodes.put(v, node);
+            }
+            node.distance = distance;
+            node.parent = parent;
+
+            if (v.equals(goal)) {
+                lowerBestWeight(distance);
+                return;
+            }
+            double priority = distance + graph.estimatedDistanceToGoal(v, goal);
+            if (priority >= bestWeight()) {
+                return;
+            }
+            if (fringe.contains(v)) {
+                fringe.changePriority(v, priority);
+            } else {
+                // either new, or reopened because of the shorter path
+                fringe.add(v, priority);
+            }
+        }
+
+        private void expand() {
+            expanding = fringe.removeSmallest();
+            expandingDistance = nodes.get(expanding).distance;
+            statesExplored++;
+            graph.forEachNeighbor(expanding, relaxNeighbor);
+        }
+
+        private void relax(Vertex neighbor, double edgeWeight) {
+            double distance = expandingDistance + edgeWeight;
+            int owner = ownerOf(neighbor);
+            if (owner == index) {
+                receive(neighbor, expanding, distance);
+                return;
+            }
+            List<Message<Vertex>> batch = outbox.get(owner);
+            batch.add(new Message<>(neighbor, expanding, distance));
+            if (batch.size() == BATCH_SIZE) {
+                send(owner);
+            }
+        }
+
+        private void sendAll() {
+            for (int owner = 0; owner < outbox.size(); owner++) {
+                send(owner);
+            }
+        }
+
+        private void send(int owner) {
+            List<Message<Vertex>> batch = outbox.get(owner);
+            if (batch.isEmpty()) {
+                return;
+            }
+            // counted before the owner can see it, so pending never drops to zero in between
+            pending.addAndGet(batch.size());
+            workers.get(owner).inbox.add(batch);
+            outbox.set(owner, new ArrayList<>(BATCH_SIZE));
+        }
+    }
+
+    private final AStarGraph<Vertex> graph;
+    private final Vertex goal;
+    private final List<Worker> workers = new ArrayList<>();
+    private final Stopwatch sw;
+    private final double timeout;
+
+    private final AtomicLong pending = new AtomicLong();
+    // the weight of the lightest path to the goal found so far, as double bits
+    private final AtomicLong bestWeightBits = new AtomicLong(Double.doubleToLongBits(Double.POSITIVE_INFINITY));
+    private volatile boolean stopped;
+    private volatile boolean timedOut;
+    // the first exception thrown in a worker
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    private SolverOutcome outcome;
+    private List<Vertex> solution;
+    private double solutionWeight;
+    private double explorationTime;
+    private int numStatesExplored;
+
+    /**
+     * Immediately solves and stores the result of running parallel A* search with
+     * a worker per available processor. The timeout is given in seconds.
+     */
+    public ParallelAStarSolver(AStarGraph<Vertex> input, Vertex start, Vertex end, double timeout) {
+        this(input, start, end, timeout, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Immediately solves and stores the result of running parallel A* search with
+     * the given number of workers, computing everything necessary for all other
+     * methods to return their results in constant time. The timeout is given in
+     * seconds.
+     */
+    public ParallelAStarSolver(AStarGraph<Vertex> input, Vertex start, Vertex end, double timeout, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads must be positive.");
+        }
+        sw = new Stopwatch();
+        this.graph = input;
+        this.goal = end;
+        this.timeout = timeout;
+        for (int i = 0; i < threads; i++) {
+            workers.add(new Worker(i));
+        }
+        pending.set(threads);
+        workers.get(ownerOf(start)).receive(start, null, 0);
+
+        for (Worker w : workers) {
+            w.thread.start();
+        }
+        boolean interrupted = false;
+        for (Worker w : workers) {
+            while (true) {
+                try {
+                    w.thread.join();
+                    break;
+                } catch (InterruptedException e) {
+                    // stop the search early, and leave the interrupt for the caller to see
+                    interrupted = true;
+                    timedOut = true;
+                    stopped = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        Throwable e = failure.get();
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        } else if (e instanceof Error) {
+            throw (Error) e;
+        } else if (e != null) {
+            throw new IllegalStateException("A worker failed.", e);
+        }
+
+        for (Worker w : workers) {
+            numStatesExplored += w.statesExplored;
+        }
+        solution = new ArrayList<>();
+        if (timedOut) {
+            outcome = SolverOutcome.TIMEOUT;
+        } else if (bestWeight() == Double.POSITIVE_INFINITY) {
+            outcome = SolverOutcome.UNSOLVABLE;
+        } else {
+            outcome = SolverOutcome.SOLVED;
+            solutionWeight = bestWeight();
+            for (Vertex v = end; v != null; v = workers.get(ownerOf(v)).nodes.get(v).parent) {
+                solution.add(v);
+            }
+            Collections.reverse(solution);
+        }
+        explorationTime = sw.elapsedTime();
+    }
+
+    /**
+     * Returns the index of the worker that owns v. The top bits of a multiplicative
+     * hash are used, since HashMap buckets by the low bits of the hash code, which
+     * would otherwise be much the same for all vertices of one worker.
+     */
+    private int ownerOf(Vertex v) {
+        long h = (v.hashCode() * 0x9E3779B9) & 0xFFFFFFFFL;
+        return (int) ((h * workers.size()) >>> 32);
+    }
+
+    private double bestWeight() {
+        return Double.longBitsToDouble(bestWeightBits.get());
+    }
+
+    private void lowerBestWeight(double weight) {
+        while (true) {
+            long bits = bestWeightBits.get();
+            if (weight >= Double.longBitsToDouble(bits)
+                    || bestWeightBits.compareAndSet(bits, Double.doubleToLongBits(weight))) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public SolverOutcome outcome() {
+        return outcome;
+    }
+
+    @Override
+    public List<Vertex> solution() {
+        return solution;
+    }
+
+    @Override
+    public double solutionWeight() {
+        return solutionWeight;
+    }
+
+    /** The total number of vertices expanded by all workers, including reopened ones. */
+    @Override
+    public int numStatesExplored() {
+        return numStatesExplored;
+    }
+
+    @Override
+    public double explorationTime() {
+        return explorationTime;
+    }
+}
@@ -0,0 +1,93 @@
+package astar;
+
+import astar.example.WeightedDirectedGraph;
+import astar.slidingpuzzle.BoardGraph;
+import astar.slidingpuzzle.BoardState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures how ParallelAStarSolver scales with the number of threads, on the
+ * hard sliding puzzles and on a large random WeightedDirectedGraph. For each
+ * search it prints the time of AStarSolver and of ParallelAStarSolver with 1, 2,
+ * 4, ... threads up to the number of processors, the speedup over one thread,
+ * and the number of states explored, which grows with the threads as vertices
+ * are expanded before the best path to them is known. Each search is repeated
+ * a few times and the fastest run is reported, to leave out JIT warm-up.
+ */
+public class ParallelScalingBenchmark {
+    private static final int REPEATS = 3;
+    private static final double TIMEOUT = 120;
+
+    private static final String[] PUZZLES = {
+        "HardPuzzle1.txt",
+        "HardPuzzle2.txt",
+        "HardPuzzle3.txt",
+    };
+
+    private static final int GRAPH_VERTICES = 1_000_000;
+    private static final int GRAPH_DEGREE = 4;
+    private static final long GRAPH_SEED = 61;
+
+    public static void main(String[] args) {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        List<Integer> threadCounts = new ArrayList<>();
+        for (int t = 1; t < maxThreads; t *= 2) {
+            threadCounts.add(t);
+        }
+        threadCounts.add(maxThreads);
+
+        BoardGraph spg = new BoardGraph();
+        for (String puzzle : PUZZLES) {
+            BoardState start = BoardState.readBoard("data/puzzles/" + puzzle);
+            BoardState goal = BoardState.solved(start.size());
+            compare(puzzle, spg, start, goal, threadCounts);
+        }
+
+        WeightedDirectedGraph g = randomGraph(GRAPH_VERTICES, GRAPH_DEGREE, GRAPH_SEED);
+        compare("random graph, " + GRAPH_VERTICES + " vertices", g, 0, GRAPH_VERTICES - 1, threadCounts);
+    }
+
+    /** A graph where each vertex has degree edges to random vertices, plus one to the next vertex. */
+    private static WeightedDirectedGraph randomGraph(int vertices, int degree, long seed) {
+        Random random = new Random(seed);
+        WeightedDirectedGraph g = new WeightedDirectedGraph(vertices);
+        for (int v = 0; v < vertices; v++) {
+            g.addEdge(v, (v + 1) % vertices, 1 + random.nextInt(100));
+            for (int i = 0; i < degree; i++) {
+                g.addEdge(v, random.nextInt(vertices), 1 + random.nextInt(100));
+            }
+        }
+        return g;
+    }
+
+    private static <Vertex> void compare(String name, AStarGraph<Vertex> graph, Vertex start, Vertex goal,
+                                         List<Integer> threadCounts) {
+        System.out.println(name + ":");
+        double best = Double.POSITIVE_INFINITY;
+        AStarSolver<Vertex> sequential = null;
+        for (int i = 0; i < REPEATS; i++) {
+            sequential = new AStarSolver<>(graph, start, goal, TIMEOUT, IndexedHeapMinPQ::new);
+            best = Math.min(best, sequential.explorationTime());
+        }
+        System.out.printf("  %-12s %9.3fs %12d states  %s\n", "AStarSolver", best,
+                          sequential.numStatesExplored(), sequential.outcome());
+
+        double oneThread = 0;
+        for (int threads : threadCounts) {
+            best = Double.POSITIVE_INFINITY;
+            ParallelAStarSolver<Vertex> parallel = null;
+            for (int i = 0; i < REPEATS; i++) {
+                parallel = new ParallelAStarSolver<>(graph, start, goal, TIMEOUT, threads);
+                best = Math.min(best, parallel.explorationTime());
+            }
+            if (threads == 1) {
+                oneThread = best;
+            }
+            System.out.printf("  %-12s %9.3fs %12d states  %s  (%.2fx)\n", threads + " threads", best,
+                              parallel.numStatesExplored(), parallel.outcome(), oneThread / best);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package astar;
+
+import java.util.List;
+
+/**
+ * An AStarGraph that can also be searched backward, from the goal toward the
+ * start, as BidirectionalAStarSolver does.
+ */
+public interface ReversibleAStarGraph<Vertex> extends AStarGraph<Vertex> {
+    /**
+     * Returns the incoming edges of the given vertex, each flipped so that it
+     * leads from v to the vertex the original edge came from.
+     */
+    List<WeightedEdge<Vertex>> reverseNeighbors(Vertex v);
+
+    /**
+     *  Returns an estimated distance from the start vertex to vertex s, the
+     *  heuristic of the backward search. Like estimatedDistanceToGoal, it should
+     *  never overestimate.
+     */
+    double estimatedDistanceFromStart(Vertex s, Vertex start);
+
+    /** Like forEachNeighbor, but for the edges of reverseNeighbors(v). */
+    default void forEachReverseNeighbor(Vertex v, NeighborConsumer<Vertex> action) {
+        for (WeightedEdge<Vertex> e : reverseNeighbors(v)) {
+            action.accept(e.to(), e.weight());
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package astar;
+
+/**
+ * Receives the events of a search as it runs, for measuring it. Every method
+ * does nothing by default, so a listener only overrides the events it needs.
+ * The solver calls the listener from the searching thread only.
+ *
+ * @see SearchMetrics for a listener that keeps counters and histograms
+ */
+public interface SearchListener<Vertex> {
+    /** What relaxing an edge did to the vertex it leads to. */
+    enum Relaxation {
+        /** The vertex had not been reached before, and was added to the fringe. */
+        DISCOVERED,
+        /** A shorter path was found to a vertex in the fringe, and its priority lowered. */
+        DECREASED_KEY,
+        /**
+         * A shorter path was found to a vertex that had already been expanded. A
+         * solver that reopens vertices would expand it again.
+         */
+        IMPROVED_EXPANDED,
+        /** The path was no shorter than the one already known. */
+        NOT_IMPROVED,
+    }
+
+    /**
+     * Called before expanding v, which is the given distance from the start, with
+     * the number of vertices left in the fringe and the number reached so far.
+     * Returning true asks the solver to time the heuristic calls made while
+     * expanding v, which is worth doing only for a sample of the vertices.
+     */
+    default boolean expanding(Vertex v, double distance, int fringeSize, int reached) {
+        return false;
+    }
+
+    /** Called after relaxing the edge from one vertex to another, with what it did. */
+    default void relaxed(Vertex from, Vertex to, double weight, Relaxation result) {
+    }
+
+    /** Called with the time taken by one heuristic call, when expanding asked for it. */
+    default void heuristicTimed(long nanos) {
+    }
+
+    /** Called once the search is over, with its results. */
+    default void finished(ShortestPathsSolver<Vertex> solver) {
+    }
+}
@@ -0,0 +1,200 @@
+package astar;
+
+import java.util.Arrays;
+
+/**
+ * A SearchListener that counts expansions and the outcomes of relaxations, and
+ * keeps a histogram of heuristic call times and a series of samples of the
+ * fringe size and the expansion rate over the course of the search.
+ *
+ * Counting costs a few increments per event. Timing the heuristic and taking
+ * samples cost more, so they are done only on every sampleInterval-th
+ * expansion; an interval of 1 measures everything.
+ *
+ * A SearchMetrics is meant for a single search, and is not thread-safe.
+ */
+public class SearchMetrics<Vertex> implements SearchListener<Vertex> {
+    /** Default number of expansions between samples. */
+    public static final int DEFAULT_SAMPLE_INTERVAL = 64;
+
+    /**
+     * A rough number of bytes AStarSolver keeps per vertex it reaches, for the
+     * entries of visited, edgeTo and distanceTo and the boxed distance, on a 64-bit
+     * JVM with compressed pointers. The vertices themselves are not included.
+     */
+    public static final int BYTES_PER_REACHED_VERTEX = 144;
+
+    private final int sampleInterval;
+    private int untilSample;
+    private long startNanos = -1;
+    private long endNanos;
+
+    private long expansions;
+    private long relaxations;
+    private final long[] relaxationResults = new long[Relaxation.values().length];
+    private int peakFringeSize;
+    private int peakReached;
+    private final Histogram heuristicNanos = new Histogram();
+
+    // sample i was taken sampleNanos[i] after the start, after sampleExpansions[i]
+    // expansions, with sampleFringeSizes[i] vertices in the fringe
+    private long[] sampleNanos = new long[16];
+    private long[] sampleExpansions = new long[16];
+    private int[] sampleFringeSizes = new int[16];
+    private int samples;
+
+    public SearchMetrics() {
+        this(DEFAULT_SAMPLE_INTERVAL);
+    }
+
+    public SearchMetrics(int sampleInterval) {
+        if (sampleInterval < 1) {
+            throw new IllegalArgumentException("Sample interval must be positive.");
+        }
+        this.sampleInterval = sampleInterval;
+        this.untilSample = 1;
+    }
+
+    @Override
+    public boolean expanding(Vertex v, double distance, int fringeSize, int reached) {
+        expansions++;
+        peakFringeSize = Math.max(peakFringeSize, fringeSize);
+        peakReached = Math.max(peakReached, reached);
+        if (--untilSample > 0) {
+            return false;
+        }
+        untilSample = sampleInterval;
+
+        long now = System.nanoTime();
+        if (startNanos < 0) {
+            startNanos = now;
+        }
+        if (samples == sampleNanos.length) {
+            sampleNanos = Arrays.copyOf(sampleNanos, 2 * samples);
+            sampleExpansions = Arrays.copyOf(sampleExpansions, 2 * samples);
+            sampleFringeSizes = Arrays.copyOf(sampleFringeSizes, 2 * samples);
+        }
+        sampleNanos[samples] = now - startNanos;
+        sampleExpansions[samples] = expansions;
+        sampleFringeSizes[samples] = fringeSize;
+        samples++;
+        return true;
+    }
+
+    @Override
+    public void relaxed(Vertex from, Vertex to, double weight, Relaxation result) {
+        relaxations++;
+        relaxationResults[result.ordinal()]++;
+    }
+
+    @Override
+    public void heuristicTimed(long nanos) {
+        heuristicNanos.add(nanos);
+    }
+
+    @Override
+    public void finished(ShortestPathsSolver<Vertex> solver) {
+        endNanos = startNanos < 0 ? 0 : System.nanoTime() - startNanos;
+    }
+
+    public long expansions() {
+        return expansions;
+    }
+
+    /** The number of edges relaxed. */
+    public long relaxations() {
+        return relaxations;
+    }
+
+    /** The number of relaxations with the given result. */
+    public long relaxations(Relaxation result) {
+        return relaxationResults[result.ordinal()];
+    }
+
+    /** The number of times a vertex's priority was lowered in the fringe. */
+    public long decreasedKeys() {
+        return relaxations(Relaxation.DECREASED_KEY);
+    }
+
+    /** The number of times a shorter path was found to a vertex already expanded. */
+    public long improvedExpanded() {
+        return relaxations(Relaxation.IMPROVED_EXPANDED);
+    }
+
+    public int peakFringeSize() {
+        return peakFringeSize;
+    }
+
+    /** The largest number of vertices the solver had reached at once. */
+    public int peakReached() {
+        return peakReached;
+    }
+
+    /** A rough estimate of the peak memory of the solver's per-vertex maps and sets. */
+    public long estimatedPeakBytes() {
+        return (long) peakReached * BYTES_PER_REACHED_VERTEX;
+    }
+
+    /** The times taken by the sampled heuristic calls, in nanoseconds. */
+    public Histogram heuristicNanos() {
+        return heuristicNanos;
+    }
+
+    /** The average number of expansions per second from the first sample to the end. */
+    public double expansionsPerSecond() {
+        if (samples == 0 || endNanos <= 0) {
+            return 0;
+        }
+        return (expansions - sampleExpansions[0]) / (endNanos / 1e9);
+    }
+
+    /** The number of samples taken, one per sampleInterval expansions. */
+    public int samples() {
+        return samples;
+    }
+
+    /** The time of sample i since the first one, in seconds. */
+    public double sampleTime(int i) {
+        return sampleNanos[checkSample(i)] / 1e9;
+    }
+
+    /** The number of expansions made by the time of sample i. */
+    public long sampleExpansions(int i) {
+        return sampleExpansions[checkSample(i)];
+    }
+
+    /** The fringe size at sample i. */
+    public int sampleFringeSize(int i) {
+        return sampleFringeSizes[checkSample(i)];
+    }
+
+    /** The expansion rate between samples i - 1 and i, in expansions per second. */
+    public double sampleExpansionsPerSecond(int i) {
+        checkSample(i);
+        if (i == 0 || sampleNanos[i] == sampleNanos[i - 1]) {
+            return 0;
+        }
+        return (sampleExpansions[i] - sampleExpansions[i - 1]) / ((sampleNanos[i] - sampleNanos[i - 1]) / 1e9);
+    }
+
+    private int checkSample(int i) {
+        if (i < 0 || i >= samples) {
+            throw new IndexOutOfBoundsException("Sample must be between 0 and " + (samples - 1));
+        }
+        return i;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        s.append(String.format("%d expansions, %.0f per second%n", expansions, expansionsPerSecond()));
+        s.append(String.format("%d relaxations: %d discovered, %d decreased keys, %d improved after"
+                               + " expansion, %d not improved%n",
+                               relaxations, relaxations(Relaxation.DISCOVERED), decreasedKeys(),
+                               improvedExpanded(), relaxations(Relaxation.NOT_IMPROVED)));
+        s.append(String.format("peak fringe %d, peak reached %d (about %d KB)%n",
+                               peakFringeSize, peakReached, estimatedPeakBytes() / 1024));
+        s.append("heuristic ns: ").append(heuristicNanos).append(String.format("%n"));
+        return s.toString();
+    }
+}
@@ -0,0 +1,221 @@
+package astar;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Answers many shortest path queries on one graph at once, each solved by its
+ * own solver on a fixed pool of threads, and measures the throughput and the
+ * latency of the queries.
+ *
+ * Every query searches the same graph object, so whatever the graph computes
+ * up front, like WordGraph's neighbor index or a BoardGraph's pattern database,
+ * is computed once and shared. The graph must therefore be safe to read from
+ * several threads at once.
+ *
+ * At most threads + queueCapacity queries are outstanding; submit blocks until
+ * one of them is done before taking more. Each query is given the timeout as
+ * its solver's own timeout, in seconds.
+ */
+public class SolverService<Vertex> implements AutoCloseable {
+    /** Makes a solver that immediately solves a query, like the solver constructors. */
+    @FunctionalInterface
+    public interface SolverFactory<Vertex> {
+        ShortestPathsSolver<Vertex> solve(AStarGraph<Vertex> graph, Vertex start, Vertex goal, double timeout);
+    }
+
+    /** A query and the solver that answered it. */
+    public static final class Result<Vertex> {
+        private final Vertex start;
+        private final Vertex goal;
+        private final ShortestPathsSolver<Vertex> solver;
+        private final double latency;
+
+        private Result(Vertex start, Vertex goal, ShortestPathsSolver<Vertex> solver, double latency) {
+            this.start = start;
+            this.goal = goal;
+            this.solver = solver;
+            this.latency = latency;
+        }
+
+        public Vertex start() {
+            return start;
+        }
+
+        public Vertex goal() {
+            return goal;
+        }
+
+        public ShortestPathsSolver<Vertex> solver() {
+            return solver;
+        }
+
+        /** The time from submitting the query to its answer, in seconds, including any wait for a thread. */
+        public double latency() {
+            return latency;
+        }
+    }
+
+    private final AStarGraph<Vertex> graph;
+    private final SolverFactory<Vertex> factory;
+    private final double timeout;
+    private final ExecutorService executor;
+    private final Semaphore slots;
+
+    // guarded by itself
+    private final Histogram latencyMicros = new Histogram();
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private volatile long firstSubmitNanos = -1;
+    private volatile long lastDoneNanos;
+
+    /** Creates a service answering queries on the graph with AStarSolver. */
+    public SolverService(AStarGraph<Vertex> graph, double timeout, int threads, int queueCapacity) {
+        this(graph, AStarSolver::new, timeout, threads, queueCapacity);
+    }
+
+    public SolverService(AStarGraph<Vertex> graph, SolverFactory<Vertex> factory, double timeout,
+                         int threads, int queueCapacity) {
+        if (graph == null) {
+            throw new NullPointerException("Graph cannot be null.");
+        }
+        if (factory == null) {
+            throw new NullPointerException("Solver factory cannot be null.");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads must be positive.");
+        }
+        if (queueCapacity < 0) {
+            throw new IllegalArgumentException("Queue capacity cannot be negative.");
+        }
+        this.graph = graph;
+        this.factory = factory;
+        this.timeout = timeout;
+        this.slots = new Semaphore(threads + queueCapacity);
+        AtomicInteger created = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "solver-" + created.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Queues a query, waiting while too many are outstanding, and returns a future
+     * for its result. The future completes exceptionally if the solver throws.
+     */
+    public CompletableFuture<Result<Vertex>> submit(Vertex start, Vertex goal) throws InterruptedException {
+        slots.acquire();
+        long submitted = System.nanoTime();
+        if (firstSubmitNanos < 0) {
+            synchronized (this) {
+                if (firstSubmitNanos < 0) {
+                    firstSubmitNanos = submitted;
+                }
+            }
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> solve(start, goal, submitted), executor);
+        } catch (RejectedExecutionException e) {
+            slots.release();
+            throw e;
+        }
+    }
+
+    /** Submits every query, given as start and goal pairs, and waits for all of their results, in order. */
+    public List<Result<Vertex>> solveAll(List<Vertex> starts, List<Vertex> goals) throws InterruptedException {
+        if (starts.size() != goals.size()) {
+            throw new IllegalArgumentException("Need as many goals as starts.");
+        }
+        List<CompletableFuture<Result<Vertex>>> futures = new ArrayList<>();
+        for (int i = 0; i < starts.size(); i++) {
+            futures.add(submit(starts.get(i), goals.get(i)));
+        }
+        List<Result<Vertex>> results = new ArrayList<>();
+        for (CompletableFuture<Result<Vertex>> f : futures) {
+            results.add(f.join());
+        }
+        return results;
+    }
+
+    private Result<Vertex> solve(Vertex start, Vertex goal, long submitted) {
+        try {
+            ShortestPathsSolver<Vertex> solver = factory.solve(graph, start, goal, timeout);
+            long done = System.nanoTime();
+            synchronized (latencyMicros) {
+                latencyMicros.add((done - submitted) / 1000);
+                lastDoneNanos = Math.max(lastDoneNanos, done);
+            }
+            completed.incrementAndGet();
+            return new Result<>(start, goal, solver, (done - submitted) / 1e9);
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            throw e;
+        } finally {
+            slots.release();
+        }
+    }
+
+    /** The number of queries answered. */
+    public int completed() {
+        return completed.get();
+    }
+
+    /** The number of queries whose solver threw an exception. */
+    public int failed() {
+        return failed.get();
+    }
+
+    /** The queries answered per second, from the first submitted to the last answered. */
+    public double throughput() {
+        long first = firstSubmitNanos;
+        long last = lastDoneNanos;
+        if (first < 0 || last <= first) {
+            return 0;
+        }
+        return completed.get() / ((last - first) / 1e9);
+    }
+
+    /** Returns the latency, in seconds, that the given fraction of the answered queries were within. */
+    public double latencyPercentile(double fraction) {
+        synchronized (latencyMicros) {
+            return latencyMicros.percentile(fraction) / 1e6;
+        }
+    }
+
+    /** Returns a summary of the throughput and latencies. */
+    public String summary() {
+        synchronized (latencyMicros) {
+            return String.format("%d queries (%d failed), %.1f per second, latency p50 %.3fs, p90 %.3fs,"
+                                 + " p99 %.3fs, max %.3fs",
+                                 completed(), failed(), throughput(), latencyMicros.percentile(0.5) / 1e6,
+                                 latencyMicros.percentile(0.9) / 1e6, latencyMicros.percentile(0.99) / 1e6,
+                                 latencyMicros.max() / 1e6);
+        }
+    }
+
+    /**
+     * Waits for the outstanding queries and stops the threads. If interrupted while
+     * waiting, abandons the queries not yet started and leaves the interrupt for
+     * the caller to see.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                // keep waiting; each query stops at its timeout
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
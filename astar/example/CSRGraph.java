@@ -0,0 +1,407 @@
+package astar.example;
+
+import astar.AStarGraph;
+import astar.IntAStarGraph;
+import astar.WeightedEdge;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A weighted directed graph in compressed sparse row form: the edges out of
+ * vertex v are those from offsets[v] up to offsets[v + 1] in the parallel
+ * targets and weights arrays. That is 8 bytes per edge and 4 per vertex, with
+ * no objects per edge, and the edges of a vertex are next to each other in
+ * memory. Weights are stored as floats.
+ *
+ * A graph can be parsed from a text edge list, copied from any IntAStarGraph,
+ * or saved to a binary file and memory-mapped back, which copies nothing into
+ * the heap whatever the size; the file is only read through once, to check
+ * that its offsets and targets are in range. The heuristic is the same crude
+ * one as WeightedDirectedGraph's.
+ */
+public class CSRGraph implements AStarGraph<Integer>, IntAStarGraph {
+    private static final int MAGIC = 0x43535231;  // "CSR1"
+    private static final int HEADER_BYTES = 12;
+
+    private final int vertices;
+    private final int edges;
+    private final IntBuffer offsets;
+    private final IntBuffer targets;
+    private final FloatBuffer weights;
+
+    private CSRGraph(int vertices, int edges, IntBuffer offsets, IntBuffer targets, FloatBuffer weights) {
+        this.vertices = vertices;
+        this.edges = edges;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    /**
+     * Builds the graph from parallel arrays giving the source, target and weight
+     * of each edge, the first count of which are used. The edges of each vertex
+     * keep their order.
+     */
+    public static CSRGraph fromEdges(int vertices, int[] from, int[] to, float[] weight, int count) {
+        int[] offsets = new int[vertices + 1];
+        for (int e = 0; e < count; e++) {
+            if (from[e] < 0 || from[e] >= vertices || to[e] < 0 || to[e] >= vertices) {
+                throw new IllegalArgumentException("Edge " + from[e] + " -> " + to[e] + " is out of range.");
+            }
+            offsets[from[e] + 1]++;
+        }
+        for (int v = 0; v < vertices; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        int[] next = Arrays.copyOf(offsets, vertices);
+        int[] targets = new int[count];
+        float[] weights = new float[count];
+        for (int e = 0; e < count; e++) {
+            int i = next[from[e]]++;
+            targets[i] = to[e];
+            weights[i] = weight[e];
+        }
+        return new CSRGraph(vertices, count, IntBuffer.wrap(offsets), IntBuffer.wrap(targets),
+                            FloatBuffer.wrap(weights));
+    }
+
+    /** Copies the edges of the given graph. */
+    public static CSRGraph copyOf(IntAStarGraph graph) {
+        int vertices = graph.numVertices();
+        int[] offsets = new int[vertices + 1];
+        for (int v = 0; v < vertices; v++) {
+            offsets[v + 1] = offsets[v] + graph.outDegree(v);
+        }
+        int[] targets = new int[offsets[vertices]];
+        float[] weights = new float[offsets[vertices]];
+        for (int v = 0; v < vertices; v++) {
+            for (int i = 0; i < graph.outDegree(v); i++) {
+                targets[offsets[v] + i] = graph.neighbor(v, i);
+                weights[offsets[v] + i] = (float) graph.weight(v, i);
+            }
+        }
+        return new CSRGraph(vertices, offsets[vertices], IntBuffer.wrap(offsets), IntBuffer.wrap(targets),
+                            FloatBuffer.wrap(weights));
+    }
+
+    /**
+     * Parses a text edge list, one "from to weight" line per edge, with vertices
+     * numbered from 0. Blank lines and lines starting with '#' are skipped. The
+     * graph has as many vertices as the largest one mentioned, plus one. The file
+     * is read as a stream of bytes into primitive arrays, without creating a
+     * String per line or token.
+     */
+    public static CSRGraph parseEdgeList(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            EdgeListParser parser = new EdgeListParser(in, file);
+            int[] from = new int[1024];
+            int[] to = new int[1024];
+            float[] weight = new float[1024];
+            int count = 0;
+            int maxVertex = -1;
+            while (parser.nextLine()) {
+                if (count == from.length) {
+                    int capacity = count + (count >> 1);
+                    from = Arrays.copyOf(from, capacity);
+                    to = Arrays.copyOf(to, capacity);
+                    weight = Arrays.copyOf(weight, capacity);
+                }
+                from[count] = parser.nextVertex();
+                to[count] = parser.nextVertex();
+                weight[count] = parser.nextWeight();
+                parser.endLine();
+                maxVertex = Math.max(maxVertex, Math.max(from[count], to[count]));
+                count++;
+            }
+            return fromEdges(maxVertex + 1, from, to, weight, count);
+        }
+    }
+
+    /**
+     * Reads the tokens of an edge list straight from its bytes, through its own
+     * buffer rather than a BufferedInputStream, whose read is synchronized.
+     */
+    private static final class EdgeListParser {
+        private final InputStream in;
+        private final Path file;
+        private final byte[] buffer = new byte[1 << 16];
+        private int position;
+        private int limit;
+        private final StringBuilder token = new StringBuilder();
+        // the current byte, or -1 at the end of the file
+        private int c;
+        private long line;
+
+        private EdgeListParser(InputStream in, Path file) throws IOException {
+            this.in = in;
+            this.file = file;
+            this.c = read();
+        }
+
+        private int read() throws IOException {
+            if (position == limit) {
+                limit = in.read(buffer);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        /** Moves to the start of the next edge, returning false at the end of the file. */
+        private boolean nextLine() throws IOException {
+            while (true) {
+                while (c == ' ' || c == '\t' || c == '\r' || c == '\n') {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    c = read();
+                }
+                if (c != '#') {
+                    return c != -1;
+                }
+                while (c != '\n' && c != -1) {
+                    c = read();
+                }
+            }
+        }
+
+        private int nextVertex() throws IOException {
+            skipSpaces();
+            long value = 0;
+            int digits = 0;
+            while (c >= '0' && c <= '9') {
+                value = 10 * value + (c - '0');
+                if (value >= Integer.MAX_VALUE) {
+                    throw error("vertex out of range");
+                }
+                digits++;
+                c = read();
+            }
+            if (digits == 0) {
+                throw error("expected a vertex");
+            }
+            return (int) value;
+        }
+
+        /** Reads a weight, directly if it is plain digits with an optional point, and with parseFloat otherwise. */
+        private float nextWeight() throws IOException {
+            skipSpaces();
+            token.setLength(0);
+            while (c != -1 && c != ' ' && c != '\t' && c != '\r' && c != '\n') {
+                token.append((char) c);
+                c = read();
+            }
+            if (token.length() == 0) {
+                throw error("expected a weight");
+            }
+            double value = 0;
+            double scale = 0;
+            for (int i = 0; i < token.length(); i++) {
+                char d = token.charAt(i);
+                if (d >= '0' && d <= '9') {
+                    value = 10 * value + (d - '0');
+                    scale *= 10;
+                } else if (d == '.' && scale == 0) {
+                    scale = 1;
+                } else {
+                    try {
+                        return Float.parseFloat(token.toString());
+                    } catch (NumberFormatException e) {
+                        throw error("bad weight " + token);
+                    }
+                }
+            }
+            return (float) (scale == 0 ? value : value / scale);
+        }
+
+        /** Checks that nothing but spaces or a comment follows the edge on its line. */
+        private void endLine() throws IOException {
+            skipSpaces();
+            if (c != '\n' && c != '\r' && c != '#' && c != -1) {
+                throw error("expected the end of the line");
+            }
+        }
+
+        private void skipSpaces() throws IOException {
+            while (c == ' ' || c == '\t') {
+                c = read();
+            }
+        }
+
+        private IOException error(String message) {
+            return new IOException(file + ":" + (line + 1) + ": " + message);
+        }
+    }
+
+    /**
+     * Saves the graph: a header of big-endian ints (magic, number of vertices,
+     * number of edges) followed by the offsets, targets and weights.
+     */
+    public void save(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.BIG_ENDIAN);
+            header.putInt(MAGIC).putInt(vertices).putInt(edges).flip();
+            drain(channel, header);
+
+            ByteBuffer chunk = ByteBuffer.allocate(1 << 16).order(ByteOrder.BIG_ENDIAN);
+            for (int i = 0; i <= vertices; i++) {
+                chunk = put(channel, chunk).putInt(offsets.get(i));
+            }
+            for (int i = 0; i < edges; i++) {
+                chunk = put(channel, chunk).putInt(targets.get(i));
+            }
+            for (int i = 0; i < edges; i++) {
+                chunk = put(channel, chunk).putFloat(weights.get(i));
+            }
+            chunk.flip();
+            drain(channel, chunk);
+        }
+    }
+
+    /** Writes out the chunk if it has no room for another value, and returns it. */
+    private static ByteBuffer put(FileChannel channel, ByteBuffer chunk) throws IOException {
+        if (chunk.remaining() < 4) {
+            chunk.flip();
+            drain(channel, chunk);
+            chunk.clear();
+        }
+        return chunk;
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Memory-maps a graph saved by save. Each array is mapped separately, so
+     * none of them is limited by the 2 GB a single mapping can hold. The offsets
+     * and targets are checked, so a corrupt file fails here rather than with an
+     * IndexOutOfBoundsException in the middle of a search.
+     */
+    public static CSRGraph load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException(file + " is not a CSR graph");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES)
+                                       .order(ByteOrder.BIG_ENDIAN);
+            if (header.getInt() != MAGIC) {
+                throw new IOException(file + " is not a CSR graph");
+            }
+            int vertices = header.getInt();
+            int edges = header.getInt();
+            long offsetsStart = HEADER_BYTES;
+            long targetsStart = offsetsStart + 4L * (vertices + 1);
+            long weightsStart = targetsStart + 4L * edges;
+            if (vertices < 0 || vertices == Integer.MAX_VALUE || edges < 0
+                    || channel.size() < weightsStart + 4L * edges) {
+                throw new IOException("Truncated or invalid CSR graph " + file);
+            }
+            IntBuffer offsets = map(channel, offsetsStart, vertices + 1).asIntBuffer();
+            IntBuffer targets = map(channel, targetsStart, edges).asIntBuffer();
+            FloatBuffer weights = map(channel, weightsStart, edges).asFloatBuffer();
+
+            // from 0 up to edges without decreasing, so every vertex's edges are in range
+            if (offsets.get(0) != 0 || offsets.get(vertices) != edges) {
+                throw new IOException("Invalid offsets in CSR graph " + file);
+            }
+            for (int v = 0; v < vertices; v++) {
+                if (offsets.get(v + 1) < offsets.get(v)) {
+                    throw new IOException("Invalid offsets in CSR graph " + file);
+                }
+            }
+            for (int e = 0; e < edges; e++) {
+                int target = targets.get(e);
+                if (target < 0 || target >= vertices) {
+                    throw new IOException("Invalid target " + target + " in CSR graph " + file);
+                }
+            }
+            return new CSRGraph(vertices, edges, offsets, targets, weights);
+        }
+    }
+
+    private static ByteBuffer map(FileChannel channel, long start, int values) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, start, 4L * values).order(ByteOrder.BIG_ENDIAN);
+    }
+
+    @Override
+    public List<WeightedEdge<Integer>> neighbors(Integer v) {
+        List<WeightedEdge<Integer>> neighbors = new ArrayList<>(outDegree(v));
+        for (int i = offsets.get(v); i < offsets.get(v + 1); i++) {
+            neighbors.add(new WeightedEdge<>(v, targets.get(i), weights.get(i)));
+        }
+        return neighbors;
+    }
+
+    @Override
+    public void forEachNeighbor(Integer v, NeighborConsumer<Integer> action) {
+        for (int i = offsets.get(v); i < offsets.get(v + 1); i++) {
+            action.accept(targets.get(i), weights.get(i));
+        }
+    }
+
+    /**
+     * Very crude heuristic that just returns the weight of the smallest edge
+     * out of vertex s.
+     */
+    @Override
+    public double estimatedDistanceToGoal(Integer s, Integer goal) {
+        return estimatedDistanceToGoal((int) s, (int) goal);
+    }
+
+    @Override
+    public int numVertices() {
+        return vertices;
+    }
+
+    /** Returns the number of edges in the graph. */
+    public int numEdges() {
+        return edges;
+    }
+
+    @Override
+    public int outDegree(int v) {
+        return offsets.get(v + 1) - offsets.get(v);
+    }
+
+    @Override
+    public int neighbor(int v, int i) {
+        return targets.get(offsets.get(v) + i);
+    }
+
+    @Override
+    public double weight(int v, int i) {
+        return weights.get(offsets.get(v) + i);
+    }
+
+    /** The same heuristic as estimatedDistanceToGoal(Integer, Integer). */
+    @Override
+    public double estimatedDistanceToGoal(int s, int goal) {
+        if (s == goal) {
+            return 0.0;
+        }
+        double estimate = Double.POSITIVE_INFINITY;
+        for (int i = offsets.get(s); i < offsets.get(s + 1); i++) {
+            estimate = Math.min(estimate, weights.get(i));
+        }
+        return estimate;
+    }
+}
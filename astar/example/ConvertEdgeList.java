@@ -0,0 +1,38 @@
+package astar.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Converts a text edge list to CSRGraph's binary format, then maps it back in,
+ * printing how long parsing, saving and loading took.
+ *
+ * Usage: java astar.example.ConvertEdgeList edges.txt graph.csr
+ */
+public class ConvertEdgeList {
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("Usage: java astar.example.ConvertEdgeList edges.txt graph.csr");
+            return;
+        }
+        Path input = Paths.get(args[0]);
+        Path output = Paths.get(args[1]);
+
+        long start = System.nanoTime();
+        CSRGraph graph = CSRGraph.parseEdgeList(input);
+        System.out.printf("Parsed %d vertices and %d edges from %s in %.3f seconds.%n",
+                          graph.numVertices(), graph.numEdges(), input, (System.nanoTime() - start) / 1e9);
+
+        start = System.nanoTime();
+        graph.save(output);
+        System.out.printf("Saved %d bytes to %s in %.3f seconds.%n",
+                          Files.size(output), output, (System.nanoTime() - start) / 1e9);
+
+        start = System.nanoTime();
+        CSRGraph loaded = CSRGraph.load(output);
+        System.out.printf("Mapped %d vertices and %d edges back in %.3f seconds.%n",
+                          loaded.numVertices(), loaded.numEdges(), (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -1,13 +1,48 @@
 package astar.example;
 
+import astar.AStarGraph;
 import astar.AStarSolver;
+import astar.AnytimeAStarSolver;
+import astar.BidirectionalAStarSolver;
+import astar.GoalDistanceCache;
+import astar.IndexedHeapMinPQ;
+import astar.IntAStarSolver;
+import astar.ParallelAStarSolver;
+import astar.SearchListener.Relaxation;
+import astar.SearchMetrics;
 import astar.ShortestPathsSolver;
 import astar.ShortestPathsSolver.SolverOutcome;
+import astar.SolverService;
+import astar.WeightedEdge;
+import astar.slidingpuzzle.BoardGraph;
+import astar.slidingpuzzle.BoardState;
+import astar.slidingpuzzle.IDAStarSolver;
+import astar.slidingpuzzle.PatternDatabase;
+import astar.wordladderpuzzle.WordGraph;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+import static junit.framework.TestCase.fail;
 
 /**
  * Provides sanity tests based on weighted directed graphs from lecture.
@@ -81,4 +116,870 @@ public class SanityTests {
         SolverOutcome expectedOutcome = SolverOutcome.UNSOLVABLE;
         assertEquals(expectedOutcome, actualOutcome);
     }
+
+    @Test
+    public void testIndexedHeapFringe() {
+        WeightedDirectedGraph wdg = lectureGraph();
+        for (int arity = 2; arity <= 4; arity++) {
+            int d = arity;
+            ShortestPathsSolver<Integer> solver =
+                new AStarSolver<>(wdg, 0, 6, 10, () -> new IndexedHeapMinPQ<>(d));
+            assertEquals(List.of(0, 1, 4, 6), solver.solution());
+            assertEquals(10.0, solver.solutionWeight(), 1e-9);
+            assertEquals(SolverOutcome.SOLVED, solver.outcome());
+        }
+    }
+
+    /** An item whose hash code only has a few values, so the heap's index must probe past collisions. */
+    private static final class Colliding {
+        private final int id;
+
+        private Colliding(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Colliding && ((Colliding) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return id % 7;
+        }
+    }
+
+    @Test
+    public void testIndexedHeapAgainstMap() {
+        Random random = new Random(36);
+        for (int arity = 2; arity <= 4; arity++) {
+            IndexedHeapMinPQ<Colliding> pq = new IndexedHeapMinPQ<>(arity);
+            Map<Colliding, Double> expected = new HashMap<>();
+            /* Mostly adds, so the heap grows and rehashes well past its initial capacity */
+            for (int op = 0; op < 20000; op++) {
+                Colliding item = new Colliding(random.nextInt(3000));
+                double priority = random.nextInt(1000);
+                int kind = random.nextInt(20);
+                if (kind < 9) {
+                    if (expected.containsKey(item)) {
+                        try {
+                            pq.add(item, priority);
+                            fail();
+                        } catch (IllegalArgumentException e) {
+                            // already there
+                        }
+                    } else {
+                        pq.add(item, priority);
+                        expected.put(item, priority);
+                    }
+                } else if (kind < 14) {
+                    if (expected.containsKey(item)) {
+                        pq.changePriority(item, priority);
+                        expected.put(item, priority);
+                    } else {
+                        try {
+                            pq.changePriority(item, priority);
+                            fail();
+                        } catch (NoSuchElementException e) {
+                            // not there
+                        }
+                    }
+                } else if (kind < 18) {
+                    if (!expected.isEmpty()) {
+                        double smallest = Collections.min(expected.values());
+                        assertEquals(smallest, pq.getSmallestPriority(), 0);
+                        Colliding removed = pq.removeSmallest();
+                        assertEquals(smallest, expected.remove(removed), 0);
+                        assertTrue(!pq.contains(removed));
+                    }
+                } else {
+                    assertEquals(expected.containsKey(item), pq.contains(item));
+                }
+                assertEquals(expected.size(), pq.size());
+            }
+            for (Colliding item : expected.keySet()) {
+                assertTrue(pq.contains(item));
+            }
+
+            /* Draining gives the priorities in order */
+            double last = Double.NEGATIVE_INFINITY;
+            while (pq.size() > 0) {
+                double priority = pq.getSmallestPriority();
+                assertTrue(priority >= last);
+                assertEquals(priority, expected.remove(pq.removeSmallest()), 0);
+                last = priority;
+            }
+            assertTrue(expected.isEmpty());
+            try {
+                pq.removeSmallest();
+                fail();
+            } catch (NoSuchElementException e) {
+                // empty
+            }
+            try {
+                pq.add(null, 0);
+                fail();
+            } catch (IllegalArgumentException e) {
+                // null
+            }
+        }
+    }
+
+    @Test
+    public void testIntSolver() {
+        WeightedDirectedGraph wdg = lectureGraph();
+        for (int start = 0; start < 7; start++) {
+            for (int goal = 0; goal < 7; goal++) {
+                ShortestPathsSolver<Integer> expected = new AStarSolver<>(wdg, start, goal, 10);
+                ShortestPathsSolver<Integer> actual = new IntAStarSolver(wdg, start, goal, 10);
+                assertEquals(expected.outcome(), actual.outcome());
+                assertEquals(expected.solution(), actual.solution());
+                assertEquals(expected.solutionWeight(), actual.solutionWeight(), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void testBidirectionalSolver() {
+        WeightedDirectedGraph wdg = lectureGraph();
+        for (int start = 0; start < 7; start++) {
+            for (int goal = 0; goal < 7; goal++) {
+                ShortestPathsSolver<Integer> expected = new AStarSolver<>(wdg, start, goal, 10);
+                ShortestPathsSolver<Integer> actual = new BidirectionalAStarSolver<>(wdg, start, goal, 10);
+                assertEquals(expected.outcome(), actual.outcome());
+                if (expected.outcome() == SolverOutcome.SOLVED) {
+                    assertEquals(expected.solutionWeight(), actual.solutionWeight(), 1e-9);
+                    assertEquals(start, (int) actual.solution().get(0));
+                    assertEquals(goal, (int) actual.solution().get(actual.solution().size() - 1));
+                }
+            }
+        }
+    }
+
+    /** A random graph with many zero-weight edges, and vertices with no way out. */
+    private static WeightedDirectedGraph randomGraph(int V, int E, Random random) {
+        WeightedDirectedGraph wdg = new WeightedDirectedGraph(V);
+        for (int i = 0; i < E; i++) {
+            wdg.addEdge(random.nextInt(V), random.nextInt(V), random.nextBoolean() ? 0 : random.nextInt(5));
+        }
+        return wdg;
+    }
+
+    @Test
+    public void testParallelSolver() {
+        Random random = new Random(45);
+        for (int g = 0; g < 10; g++) {
+            WeightedDirectedGraph wdg = randomGraph(40, 100, random);
+            for (int q = 0; q < 10; q++) {
+                int start = random.nextInt(40);
+                int goal = random.nextInt(40);
+                ShortestPathsSolver<Integer> expected = new BidirectionalAStarSolver<>(wdg, start, goal, 10);
+                for (int threads : new int[]{1, 2, 4}) {
+                    ShortestPathsSolver<Integer> actual = new ParallelAStarSolver<>(wdg, start, goal, 10, threads);
+                    assertEquals(expected.outcome(), actual.outcome());
+                    if (expected.outcome() != SolverOutcome.SOLVED) {
+                        continue;
+                    }
+                    assertEquals(expected.solutionWeight(), actual.solutionWeight(), 1e-9);
+
+                    /* The path follows edges whose weights add up to the solution's */
+                    List<Integer> path = actual.solution();
+                    assertEquals(start, (int) path.get(0));
+                    assertEquals(goal, (int) path.get(path.size() - 1));
+                    double weight = 0;
+                    for (int i = 0; i + 1 < path.size(); i++) {
+                        double lightest = Double.POSITIVE_INFINITY;
+                        for (WeightedEdge<Integer> e : wdg.neighbors(path.get(i))) {
+                            if (e.to().equals(path.get(i + 1))) {
+                                lightest = Math.min(lightest, e.weight());
+                            }
+                        }
+                        weight += lightest;
+                    }
+                    assertEquals(actual.solutionWeight(), weight, 1e-9);
+                }
+            }
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testParallelSolverRethrows() {
+        WeightedDirectedGraph wdg = lectureGraph();
+        /* Fails when expanding the start, so the worker that owns it dies */
+        AStarGraph<Integer> failing = new AStarGraph<Integer>() {
+            @Override
+            public List<WeightedEdge<Integer>> neighbors(Integer v) {
+                if (v == 0) {
+                    throw new IllegalStateException("broken graph");
+                }
+                return wdg.neighbors(v);
+            }
+
+            @Override
+            public double estimatedDistanceToGoal(Integer s, Integer goal) {
+                return wdg.estimatedDistanceToGoal(s, goal);
+            }
+        };
+        for (int threads : new int[]{1, 2, 4}) {
+            try {
+                new ParallelAStarSolver<>(failing, 0, 6, 10, threads);
+                fail();
+            } catch (IllegalStateException e) {
+                assertEquals("broken graph", e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testSearchMetrics() {
+        WeightedDirectedGraph wdg = lectureGraph();
+        SearchMetrics<Integer> metrics = new SearchMetrics<>(1);
+        ShortestPathsSolver<Integer> solver = new AStarSolver<>(wdg, 0, 6, 10, metrics);
+        assertEquals(List.of(0, 1, 4, 6), solver.solution());
+        assertEquals((long) solver.numStatesExplored(), metrics.expansions());
+        assertEquals(metrics.expansions(), (long) metrics.samples());
+        long total = 0;
+        for (Relaxation r : Relaxation.values()) {
+            total += metrics.relaxations(r);
+        }
+        assertEquals(metrics.relaxations(), total);
+        assertEquals(metrics.relaxations(), metrics.heuristicNanos().count());
+    }
+
+    @Test
+    public void testGoalDistanceCache() {
+        WeightedDirectedGraph wdg = lectureGraph();
+        GoalDistanceCache<Integer> cache = new GoalDistanceCache<>(wdg, 1 << 20);
+        for (int goal = 0; goal < 7; goal++) {
+            for (int start = 0; start < 7; start++) {
+                ShortestPathsSolver<Integer> expected = new AStarSolver<>(wdg, start, goal, 10);
+                ShortestPathsSolver<Integer> cached = cache.solve(start, goal);
+                ShortestPathsSolver<Integer> perfect = new AStarSolver<>(cache.perfectHeuristicGraph(), start, goal, 10);
+                assertEquals(expected.outcome(), cached.outcome());
+                assertEquals(expected.outcome(), perfect.outcome());
+                if (expected.outcome() == SolverOutcome.SOLVED) {
+                    assertEquals(expected.solutionWeight(), cached.solutionWeight(), 1e-9);
+                    assertEquals(expected.solutionWeight(), perfect.solutionWeight(), 1e-9);
+                    assertEquals(start, (int) cached.solution().get(0));
+                    assertEquals(goal, (int) cached.solution().get(cached.solution().size() - 1));
+                }
+            }
+        }
+        assertEquals(7, cache.cachedGoals());
+    }
+
+    @Test
+    public void testGoalDistanceCacheEvictions() {
+        /* A cycle through every vertex, so every goal's tree holds all 60 of them */
+        Random random = new Random(48);
+        WeightedDirectedGraph wdg = randomGraph(60, 120, random);
+        for (int v = 0; v < 60; v++) {
+            wdg.addEdge(v, (v + 1) % 60, 1 + random.nextInt(5));
+        }
+        long treeBytes = 60L * GoalDistanceCache.BYTES_PER_VERTEX;
+
+        /* Room for three trees, with the least recently used dropped first */
+        GoalDistanceCache<Integer> cache = new GoalDistanceCache<>(wdg, 3 * treeBytes + 10);
+        for (int goal : new int[]{0, 1, 2, 0, 3}) {
+            assertEquals(60, cache.treeFor(goal).size());
+        }
+        assertEquals(1, cache.hits());
+        assertEquals(4, cache.misses());
+        assertEquals(1, cache.evictions());
+        assertEquals(3, cache.cachedGoals());
+        cache.treeFor(2);
+        assertEquals(2, cache.hits());
+        cache.treeFor(1);
+        assertEquals(5, cache.misses());
+        assertEquals(2, cache.evictions());
+
+        /* Many queries toward a few goals, which keep evicting each other */
+        for (int q = 0; q < 300; q++) {
+            int start = random.nextInt(60);
+            int goal = random.nextInt(8);
+            ShortestPathsSolver<Integer> expected = new AStarSolver<>(wdg, start, goal, 10);
+            ShortestPathsSolver<Integer> cached = cache.solve(start, goal);
+            assertEquals(SolverOutcome.SOLVED, cached.outcome());
+            assertEquals(expected.solutionWeight(), cached.solutionWeight(), 1e-9);
+            assertTrue(cache.cachedGoals() <= 3);
+            assertTrue(cache.estimatedBytes() <= 3 * treeBytes + 10);
+            assertEquals(cache.cachedVertices() * GoalDistanceCache.BYTES_PER_VERTEX, cache.estimatedBytes());
+        }
+        assertEquals(307, cache.hits() + cache.misses());
+        assertEquals(cache.misses() - 3, cache.evictions());
+
+        /* A tree larger than the whole budget is returned but not kept */
+        GoalDistanceCache<Integer> small = new GoalDistanceCache<>(wdg, treeBytes - 1);
+        assertEquals(60, small.treeFor(0).size());
+        assertEquals(60, small.treeFor(0).size());
+        assertEquals(0, small.cachedGoals());
+        assertEquals(0, small.estimatedBytes());
+        assertEquals(2, small.misses());
+        assertEquals(0, small.evictions());
+    }
+
+    @Test
+    public void testAnytimeSolver() {
+        WeightedDirectedGraph wdg = lectureGraph();
+        for (int start = 0; start < 7; start++) {
+            for (int goal = 0; goal < 7; goal++) {
+                ShortestPathsSolver<Integer> expected = new AStarSolver<>(wdg, start, goal, 10);
+                AnytimeAStarSolver<Integer> actual = new AnytimeAStarSolver<>(wdg, start, goal, 10);
+                assertEquals(expected.outcome(), actual.outcome());
+                if (expected.outcome() == SolverOutcome.SOLVED) {
+                    assertEquals(expected.solutionWeight(), actual.solutionWeight(), 1e-9);
+                    assertEquals(1.0, actual.suboptimalityBound(), 1e-9);
+                }
+            }
+        }
+    }
+
+    /** An n-by-n grid with random weights from 1 to 9, whose Manhattan distance heuristic never overestimates. */
+    private static AStarGraph<Integer> randomGrid(int n, Random random) {
+        double[] right = new double[n * n];
+        double[] down = new double[n * n];
+        for (int v = 0; v < n * n; v++) {
+            right[v] = 1 + random.nextInt(9);
+            down[v] = 1 + random.nextInt(9);
+        }
+        return new AStarGraph<Integer>() {
+            @Override
+            public List<WeightedEdge<Integer>> neighbors(Integer v) {
+                List<WeightedEdge<Integer>> edges = new ArrayList<>();
+                if (v % n < n - 1) {
+                    edges.add(new WeightedEdge<>(v, v + 1, right[v]));
+                }
+                if (v % n > 0) {
+                    edges.add(new WeightedEdge<>(v, v - 1, right[v - 1]));
+                }
+                if (v / n < n - 1) {
+                    edges.add(new WeightedEdge<>(v, v + n, down[v]));
+                }
+                if (v / n > 0) {
+                    edges.add(new WeightedEdge<>(v, v - n, down[v - n]));
+                }
+                return edges;
+            }
+
+            @Override
+            public double estimatedDistanceToGoal(Integer s, Integer goal) {
+                return Math.abs(s % n - goal % n) + Math.abs(s / n - goal / n);
+            }
+        };
+    }
+
+    /** Delegates to the graph, but stalls for the given time before every expansion after the first ones. */
+    private static AStarGraph<Integer> stallingGraph(AStarGraph<Integer> graph, int expansions, long millis) {
+        return new AStarGraph<Integer>() {
+            private int expanded;
+
+            @Override
+            public List<WeightedEdge<Integer>> neighbors(Integer v) {
+                return graph.neighbors(v);
+            }
+
+            @Override
+            public void forEachNeighbor(Integer v, NeighborConsumer<Integer> action) {
+                if (expanded++ >= expansions) {
+                    try {
+                        Thread.sleep(millis);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                graph.forEachNeighbor(v, action);
+            }
+
+            @Override
+            public double estimatedDistanceToGoal(Integer s, Integer goal) {
+                return graph.estimatedDistanceToGoal(s, goal);
+            }
+        };
+    }
+
+    @Test
+    public void testAnytimeSolverBounds() {
+        Random random = new Random(49);
+        for (int g = 0; g < 2; g++) {
+            AStarGraph<Integer> grid = randomGrid(20, random);
+            double optimum = new AStarSolver<>(grid, 0, 399, 10).solutionWeight();
+            AnytimeAStarSolver<Integer> full = new AnytimeAStarSolver<>(grid, 0, 399, 10, 5, 1);
+            assertEquals(SolverOutcome.SOLVED, full.outcome());
+            assertEquals(optimum, full.solutionWeight(), 1e-9);
+            assertTrue(full.searches() > 1);
+            int total = full.numStatesExplored();
+
+            /* Cut the same search off after more and more expansions, by stalling past the timeout */
+            double lastBound = Double.POSITIVE_INFINITY;
+            int lastSearches = 0;
+            int lastExplored = 0;
+            boolean timedOutWithoutPath = false;
+            boolean timedOutWithPath = false;
+            boolean suboptimalBound = false;
+            for (int k = 0; k <= 8; k++) {
+                AStarGraph<Integer> stalling = stallingGraph(grid, k * (total - 1) / 8, 150);
+                AnytimeAStarSolver<Integer> cut = new AnytimeAStarSolver<>(stalling, 0, 399, 0.1, 5, 1);
+                assertTrue(cut.numStatesExplored() >= lastExplored);
+                lastExplored = cut.numStatesExplored();
+                if (cut.outcome() == SolverOutcome.TIMEOUT) {
+                    /* Only without any path to report */
+                    assertEquals(List.of(), cut.solution());
+                    assertTrue(lastBound == Double.POSITIVE_INFINITY);
+                    timedOutWithoutPath = true;
+                    continue;
+                }
+                assertEquals(SolverOutcome.SOLVED, cut.outcome());
+                timedOutWithPath |= cut.numStatesExplored() < total;
+
+                /* A real path, no lighter than the shortest, and no heavier than the bound allows */
+                List<Integer> path = cut.solution();
+                assertEquals(0, (int) path.get(0));
+                assertEquals(399, (int) path.get(path.size() - 1));
+                double weight = 0;
+                for (int i = 0; i + 1 < path.size(); i++) {
+                    for (WeightedEdge<Integer> e : grid.neighbors(path.get(i))) {
+                        if (e.to().equals(path.get(i + 1))) {
+                            weight += e.weight();
+                        }
+                    }
+                }
+                assertEquals(cut.solutionWeight(), weight, 1e-9);
+                assertTrue(weight >= optimum - 1e-9);
+                assertTrue(weight <= cut.suboptimalityBound() * optimum + 1e-9);
+                suboptimalBound |= cut.suboptimalityBound() > 1 && cut.suboptimalityBound() <= 5;
+
+                /* Later cut-offs have run at least as many searches, so their bounds are at least as tight */
+                assertTrue(cut.suboptimalityBound() <= lastBound);
+                assertTrue(cut.searches() >= lastSearches);
+                lastBound = cut.suboptimalityBound();
+                lastSearches = cut.searches();
+            }
+            assertTrue(timedOutWithoutPath);
+            assertTrue(timedOutWithPath);
+            assertTrue(suboptimalBound);
+        }
+    }
+
+    @Test
+    public void testCSRGraph() {
+        WeightedDirectedGraph wdg = lectureGraph();
+        CSRGraph csr = CSRGraph.copyOf(wdg);
+        for (int start = 0; start < 7; start++) {
+            for (int goal = 0; goal < 7; goal++) {
+                ShortestPathsSolver<Integer> expected = new AStarSolver<>(wdg, start, goal, 10);
+                ShortestPathsSolver<Integer> actual = new AStarSolver<>(csr, start, goal, 10);
+                assertEquals(expected.outcome(), actual.outcome());
+                assertEquals(expected.solution(), actual.solution());
+                assertEquals(expected.solutionWeight(), actual.solutionWeight(), 1e-9);
+            }
+        }
+    }
+
+    /** Returns the board reached by making the given number of random moves from start. */
+    private static BoardState randomWalk(BoardState start, int moves, Random random) {
+        BoardState board = start;
+        for (int i = 0; i < moves; i++) {
+            List<BoardState> neighbors = board.neighbors();
+            board = neighbors.get(random.nextInt(neighbors.size()));
+        }
+        return board;
+    }
+
+    /** Checks that the solution goes from start to goal one move at a time, in as many moves as its weight. */
+    private static void assertValidBoardPath(ShortestPathsSolver<BoardState> solver, BoardState start, BoardState goal) {
+        List<BoardState> path = solver.solution();
+        assertEquals(start, path.get(0));
+        assertEquals(goal, path.get(path.size() - 1));
+        for (int i = 1; i < path.size(); i++) {
+            assertTrue(path.get(i - 1).neighbors().contains(path.get(i)));
+        }
+        assertEquals(path.size() - 1, solver.solutionWeight(), 1e-9);
+    }
+
+    @Test
+    public void testIDAStarSolver() {
+        Random random = new Random(40);
+        BoardGraph graph = new BoardGraph();
+        BoardState goal = BoardState.solved(3);
+        for (int i = 0; i < 20; i++) {
+            BoardState start = randomWalk(goal, 10 + random.nextInt(50), random);
+            ShortestPathsSolver<BoardState> expected = new AStarSolver<>(graph, start, goal, 10);
+            IDAStarSolver actual = new IDAStarSolver(start, goal, 10);
+            assertEquals(SolverOutcome.SOLVED, actual.outcome());
+            assertEquals(expected.solutionWeight(), actual.solutionWeight(), 1e-9);
+            assertValidBoardPath(actual, start, goal);
+        }
+
+        /* Swapping two tiles changes the parity, so the goal can't be reached */
+        BoardState swapped = new BoardState(new int[][]{{2, 1, 3}, {4, 5, 6}, {7, 8, 0}});
+        assertEquals(SolverOutcome.UNSOLVABLE, new AStarSolver<>(graph, swapped, goal, 10).outcome());
+        IDAStarSolver unsolvable = new IDAStarSolver(swapped, goal, 10);
+        assertEquals(SolverOutcome.UNSOLVABLE, unsolvable.outcome());
+        assertEquals(List.of(), unsolvable.solution());
+
+        /* This 4x4 board takes 46 moves and millions of expansions, so it can't be solved in no time */
+        BoardState hard = randomWalk(BoardState.solved(4), 400, new Random(4));
+        assertEquals(SolverOutcome.TIMEOUT, new IDAStarSolver(hard, BoardState.solved(4), 0).outcome());
+    }
+
+    @Test
+    public void testPatternDatabase() throws IOException {
+        PatternDatabase patterns = PatternDatabase.build(3);
+        BoardGraph manhattan = new BoardGraph();
+        BoardGraph withPatterns = new BoardGraph(patterns);
+        BoardState goal = BoardState.solved(3);
+        Random random = new Random(41);
+        for (int i = 0; i < 20; i++) {
+            BoardState start = randomWalk(goal, 10 + random.nextInt(50), random);
+            ShortestPathsSolver<BoardState> expected = new AStarSolver<>(manhattan, start, goal, 10);
+            ShortestPathsSolver<BoardState> actual = new AStarSolver<>(withPatterns, start, goal, 10);
+            assertEquals(SolverOutcome.SOLVED, actual.outcome());
+            assertEquals(expected.solutionWeight(), actual.solutionWeight(), 1e-9);
+            assertValidBoardPath(actual, start, goal);
+
+            /* The additive estimate never overestimates, and is never below the Manhattan distance */
+            int estimate = patterns.estimate(start);
+            assertTrue(estimate <= actual.solutionWeight());
+            assertTrue(estimate >= manhattan.estimatedDistanceToGoal(start, goal));
+        }
+
+        /* A saved database loads back with the same estimates */
+        Path file = Files.createTempFile("patterns", ".pdb");
+        file.toFile().deleteOnExit();
+        patterns.save(file);
+        PatternDatabase loaded = PatternDatabase.load(file);
+        assertEquals(patterns.size(), loaded.size());
+        for (int i = 0; i < 20; i++) {
+            BoardState b = randomWalk(goal, 30, random);
+            assertEquals(patterns.estimate(b), loaded.estimate(b));
+        }
+
+        /* The first tile of the first group follows the magic, N, group count and group size */
+        byte[] saved = Files.readAllBytes(file);
+        for (int tile : new int[]{0, 9, 5}) {
+            byte[] corrupt = saved.clone();
+            ByteBuffer.wrap(corrupt).putInt(16, tile);
+            Path corruptFile = Files.createTempFile("patterns", ".pdb");
+            corruptFile.toFile().deleteOnExit();
+            Files.write(corruptFile, corrupt);
+            try {
+                PatternDatabase.load(corruptFile);
+                fail();
+            } catch (IOException e) {
+                assertTrue(e.getMessage().startsWith("Invalid pattern database header"));
+            }
+        }
+    }
+
+    /** Copies the board's tiles into a grid. */
+    private static int[][] tiles(BoardState b) {
+        int[][] tiles = new int[b.size()][b.size()];
+        for (int i = 0; i < b.size(); i++) {
+            for (int j = 0; j < b.size(); j++) {
+                tiles[i][j] = b.tileAt(i, j);
+            }
+        }
+        return tiles;
+    }
+
+    @Test
+    public void testBoardStateSlides() {
+        Random random = new Random(42);
+        /* Boards up to 4x4 pack into one long; 5x5 and 6x6 use the words array */
+        for (int N = 2; N <= 6; N++) {
+            BoardState board = BoardState.solved(N);
+            for (int move = 0; move < 200; move++) {
+                int[][] tiles = tiles(board);
+                BoardState fresh = new BoardState(tiles);
+                assertEquals(fresh, board);
+                assertEquals(board, fresh);
+                assertEquals(fresh.hashCode(), board.hashCode());
+
+                /* Neighbors in the order up, left, right, down, built by swapping grid cells */
+                int row = 0;
+                int col = 0;
+                for (int i = 0; i < N; i++) {
+                    for (int j = 0; j < N; j++) {
+                        if (tiles[i][j] == 0) {
+                            row = i;
+                            col = j;
+                        }
+                    }
+                }
+                List<BoardState> expected = new ArrayList<>();
+                int[][] moves = {{-1, 0}, {0, -1}, {0, 1}, {1, 0}};
+                for (int[] m : moves) {
+                    int i = row + m[0];
+                    int j = col + m[1];
+                    if (i >= 0 && i < N && j >= 0 && j < N) {
+                        int[][] swapped = tiles(board);
+                        swapped[row][col] = swapped[i][j];
+                        swapped[i][j] = 0;
+                        expected.add(new BoardState(swapped));
+                    }
+                }
+                List<BoardState> actual = board.neighbors();
+                assertEquals(expected, actual);
+                assertEquals(expected, fresh.neighbors());
+                for (int k = 0; k < expected.size(); k++) {
+                    assertEquals(expected.get(k).hashCode(), actual.get(k).hashCode());
+                    assertTrue(!actual.get(k).equals(board));
+                    for (int i = 0; i < N; i++) {
+                        for (int j = 0; j < N; j++) {
+                            assertEquals(expected.get(k).tileAt(i, j), actual.get(k).tileAt(i, j));
+                        }
+                    }
+                }
+                board = actual.get(random.nextInt(actual.size()));
+            }
+        }
+    }
+
+    /** The Manhattan distance computed directly, by finding each tile in the goal. */
+    private static int manhattan(BoardState b, BoardState goal) {
+        int N = b.size();
+        int total = 0;
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                for (int gi = 0; gi < N; gi++) {
+                    for (int gj = 0; gj < N; gj++) {
+                        if (b.tileAt(i, j) != 0 && b.tileAt(i, j) == goal.tileAt(gi, gj)) {
+                            total += Math.abs(i - gi) + Math.abs(j - gj);
+                        }
+                    }
+                }
+            }
+        }
+        return total;
+    }
+
+    @Test
+    public void testBoardGraphHeuristic() {
+        Random random = new Random(43);
+        BoardGraph patternGraph = new BoardGraph(PatternDatabase.build(3));
+        for (int N = 3; N <= 5; N++) {
+            BoardGraph graph = new BoardGraph();
+            BoardState[] goals = {BoardState.solved(N), randomWalk(BoardState.solved(N), 101, random)};
+            for (int step = 0; step < 100; step++) {
+                BoardState b = randomWalk(goals[0], 60, random);
+                /* Alternates goals, as concurrent queries toward different goals would */
+                for (BoardState goal : goals) {
+                    assertEquals((double) manhattan(b, goal), graph.estimatedDistanceToGoal(b, goal), 0);
+                    assertTrue(graph.hasHeuristicDelta(goal));
+                    for (BoardState n : b.neighbors()) {
+                        assertEquals((double) (manhattan(n, goal) - manhattan(b, goal)),
+                                     graph.heuristicDelta(b, n, goal), 0);
+                    }
+                }
+
+                /* The 3x3 database covers only the solved goal, and falls back to Manhattan for the other */
+                if (N == 3) {
+                    assertTrue(!patternGraph.hasHeuristicDelta(goals[0]));
+                    assertTrue(patternGraph.estimatedDistanceToGoal(b, goals[0]) >= manhattan(b, goals[0]));
+                    assertTrue(patternGraph.hasHeuristicDelta(goals[1]));
+                    assertEquals((double) manhattan(b, goals[1]), patternGraph.estimatedDistanceToGoal(b, goals[1]), 0);
+                    for (BoardState n : b.neighbors()) {
+                        assertEquals((double) (manhattan(n, goals[1]) - manhattan(b, goals[1])),
+                                     patternGraph.heuristicDelta(b, n, goals[1]), 0);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testWordGraphNeighbors() {
+        /* Runs of repeated letters, and words that differ only in case */
+        Set<String> words = new HashSet<>(List.of(
+                "a", "b", "aa", "ab", "Ba", "aaa", "aab", "AAB", "baa", "Bab", "abb", "bba", "abba",
+                "horse", "Hose", "house", "HORSES", "hoarse", "Mississippi", "misisippi", "missisippi"));
+        List<String> queries = new ArrayList<>(words);
+        queries.addAll(List.of("", "A", "aba", "Horse", "hoose", "mississipi"));
+        for (boolean cacheNeighbors : new boolean[]{false, true}) {
+            WordGraph graph = new WordGraph(words, cacheNeighbors);
+            for (String s : queries) {
+                List<String> expected = new ArrayList<>();
+                for (String w : words) {
+                    if (graph.estimatedDistanceToGoal(s, w) == 1) {
+                        expected.add(w);
+                    }
+                }
+                List<String> actual = new ArrayList<>();
+                graph.forEachNeighbor(s, (w, weight) -> actual.add(w));
+                Collections.sort(expected);
+                Collections.sort(actual);
+                assertEquals(expected, actual);
+                assertEquals(actual.size(), new HashSet<>(actual).size());
+            }
+        }
+    }
+
+    @Test
+    public void testSolverServiceMatchesSequential() throws InterruptedException {
+        Random random = new Random(47);
+        WeightedDirectedGraph wdg = randomGraph(60, 180, random);
+        List<Integer> starts = new ArrayList<>();
+        List<Integer> goals = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            starts.add(random.nextInt(60));
+            goals.add(random.nextInt(60));
+        }
+        try (SolverService<Integer> service = new SolverService<>(wdg, 10, 4, 2)) {
+            List<SolverService.Result<Integer>> results = service.solveAll(starts, goals);
+            for (int i = 0; i < starts.size(); i++) {
+                ShortestPathsSolver<Integer> expected = new AStarSolver<>(wdg, starts.get(i), goals.get(i), 10);
+                ShortestPathsSolver<Integer> actual = results.get(i).solver();
+                assertEquals(starts.get(i), results.get(i).start());
+                assertEquals(goals.get(i), results.get(i).goal());
+                assertEquals(expected.outcome(), actual.outcome());
+                assertEquals(expected.solution(), actual.solution());
+                assertEquals(expected.solutionWeight(), actual.solutionWeight(), 1e-9);
+            }
+            assertEquals(starts.size(), service.completed());
+        }
+    }
+
+    @Test
+    public void testSolverServiceFailure() throws InterruptedException {
+        WeightedDirectedGraph wdg = lectureGraph();
+        SolverService.SolverFactory<Integer> factory = (graph, start, goal, timeout) -> {
+            if (start == 3) {
+                throw new IllegalStateException("broken solver");
+            }
+            return new AStarSolver<>(graph, start, goal, timeout);
+        };
+        try (SolverService<Integer> service = new SolverService<>(wdg, factory, 10, 2, 7)) {
+            List<CompletableFuture<SolverService.Result<Integer>>> futures = new ArrayList<>();
+            for (int start = 0; start < 7; start++) {
+                futures.add(service.submit(start, 6));
+            }
+            for (int start = 0; start < 7; start++) {
+                try {
+                    SolverService.Result<Integer> result = futures.get(start).join();
+                    assertTrue(start != 3);
+                    assertEquals(start, (int) result.start());
+                } catch (CompletionException e) {
+                    assertEquals(3, start);
+                    assertEquals("broken solver", e.getCause().getMessage());
+                }
+            }
+            assertEquals(1, service.failed());
+            assertEquals(6, service.completed());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testSolverServiceBoundsOutstanding() throws InterruptedException {
+        WeightedDirectedGraph wdg = lectureGraph();
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger mostRunning = new AtomicInteger();
+        SolverService.SolverFactory<Integer> factory = (graph, start, goal, timeout) -> {
+            mostRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            running.decrementAndGet();
+            return new AStarSolver<>(graph, start, goal, timeout);
+        };
+
+        /* 2 threads and room for 1 more, so the 4th submit blocks until a query is done */
+        try (SolverService<Integer> service = new SolverService<>(wdg, factory, 10, 2, 1)) {
+            AtomicInteger submitted = new AtomicInteger();
+            List<CompletableFuture<SolverService.Result<Integer>>> futures = new ArrayList<>();
+            Thread submitter = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 10; i++) {
+                        futures.add(service.submit(i % 7, 6));
+                        submitted.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            submitter.start();
+            while (submitter.getState() != Thread.State.WAITING) {
+                Thread.sleep(1);
+            }
+            assertEquals(3, submitted.get());
+
+            release.countDown();
+            submitter.join();
+            assertEquals(10, submitted.get());
+            for (int i = 0; i < futures.size(); i++) {
+                assertEquals(new AStarSolver<>(wdg, i % 7, 6, 10).outcome(), futures.get(i).join().solver().outcome());
+            }
+            assertTrue(mostRunning.get() <= 2);
+        }
+    }
+
+    @Test
+    public void testCSRGraphFiles() throws IOException {
+        /* The lecture graph, with comments, CRLF line ends, exponents, and blank lines */
+        String edgeList = "# the graph from lecture\r\n"
+                          + "0 1 2\r\n"
+                          + "0 2 1.0\r\n"
+                          + "\r\n"
+                          + "1 2 5e0\r\n"
+                          + "1 3\t11   # a comment after an edge\r\n"
+                          + "1 4 0.3E1\r\n"
+                          + "2 5 1.5e+1\n"
+                          + "3 4 2\n"
+                          + "4 2 1\n"
+                          + "4 5 40e-1\n"
+                          + "4 6 5\n"
+                          + "\n"
+                          + "6 3 1\n"
+                          + "6 5 1";
+        Path text = Files.createTempFile("graph", ".txt");
+        text.toFile().deleteOnExit();
+        Files.write(text, edgeList.getBytes(StandardCharsets.US_ASCII));
+        CSRGraph parsed = CSRGraph.parseEdgeList(text);
+
+        Path binary = Files.createTempFile("graph", ".csr");
+        binary.toFile().deleteOnExit();
+        parsed.save(binary);
+        CSRGraph loaded = CSRGraph.load(binary);
+
+        WeightedDirectedGraph wdg = lectureGraph();
+        for (CSRGraph csr : new CSRGraph[]{parsed, loaded}) {
+            assertEquals(7, csr.numVertices());
+            for (int v = 0; v < 7; v++) {
+                assertEquals(wdg.outDegree(v), csr.outDegree(v));
+                for (int i = 0; i < wdg.outDegree(v); i++) {
+                    assertEquals(wdg.neighbor(v, i), csr.neighbor(v, i));
+                    assertEquals(wdg.weight(v, i), csr.weight(v, i), 1e-6);
+                }
+            }
+        }
+
+        /* A malformed line is reported with its line number */
+        Files.write(text, "0 1 2\r\n0 x 1\r\n".getBytes(StandardCharsets.US_ASCII));
+        try {
+            CSRGraph.parseEdgeList(text);
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains(":2: "));
+        }
+
+        /* Offsets that decrease, and targets out of range, are rejected on load */
+        byte[] saved = Files.readAllBytes(binary);
+        int targetsStart = 12 + 4 * 8;
+        int[][] corruptions = {{12 + 4 * 2, 99}, {12 + 4 * 7, 10}, {targetsStart, 7}, {targetsStart + 4, -1}};
+        for (int[] corruption : corruptions) {
+            byte[] corrupt = saved.clone();
+            ByteBuffer.wrap(corrupt).putInt(corruption[0], corruption[1]);
+            Path corruptFile = Files.createTempFile("graph", ".csr");
+            corruptFile.toFile().deleteOnExit();
+            Files.write(corruptFile, corrupt);
+            try {
+                CSRGraph.load(corruptFile);
+                fail();
+            } catch (IOException e) {
+                assertTrue(e.getMessage().startsWith("Invalid"));
+            }
+        }
+    }
 }
@@ -1,13 +1,18 @@
 package astar.example;
 
-import astar.AStarGraph;
+import astar.IntAStarGraph;
+import astar.ReversibleAStarGraph;
 import astar.WeightedEdge;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
-/** A very simple (and literal) example of an AStarGraph. */
-public class WeightedDirectedGraph implements AStarGraph<Integer> {
+/**
+ * A very simple (and literal) example of an AStarGraph, which can also be searched
+ * backward and as an IntAStarGraph.
+ */
+public class WeightedDirectedGraph implements ReversibleAStarGraph<Integer>, IntAStarGraph {
     /** Represents the list of edges from a single vertex. */
     private static final class EdgeList {
         private List<WeightedEdge<Integer>> list;
@@ -17,11 +22,15 @@ public class WeightedDirectedGraph implements AStarGraph<Integer> {
     }
 
     private EdgeList[] adj;
+    // reverseAdj[v] holds the edges into v, flipped
+    private EdgeList[] reverseAdj;
 
     public WeightedDirectedGraph(int V) {
         adj = new EdgeList[V];
+        reverseAdj = new EdgeList[V];
         for (int i = 0; i < V; i += 1) {
             adj[i] = new EdgeList();
+            reverseAdj[i] = new EdgeList();
         }
     }
 
@@ -49,8 +58,68 @@ public class WeightedDirectedGraph implements AStarGraph<Integer> {
         return estimate;
     }
 
+    /** The flipped edges are kept only for searching backward, so callers can't change them. */
+    @Override
+    public List<WeightedEdge<Integer>> reverseNeighbors(Integer v) {
+        return Collections.unmodifiableList(reverseAdj[v].list);
+    }
+
+    /**
+     * The backward version of the crude heuristic: the weight of the smallest
+     * edge into vertex s, since a path from start to s has to end with one.
+     */
+    @Override
+    public double estimatedDistanceFromStart(Integer s, Integer start) {
+        if (s.equals(start)) {
+            return 0.0;
+        }
+        double estimate = Double.POSITIVE_INFINITY;
+        for (WeightedEdge<Integer> e : reverseAdj[s].list) {
+            if (e.weight() < estimate) {
+                estimate = e.weight();
+            }
+        }
+        return estimate;
+    }
+
+    @Override
+    public int numVertices() {
+        return adj.length;
+    }
+
+    @Override
+    public int outDegree(int v) {
+        return adj[v].list.size();
+    }
+
+    @Override
+    public int neighbor(int v, int i) {
+        return adj[v].list.get(i).to();
+    }
+
+    @Override
+    public double weight(int v, int i) {
+        return adj[v].list.get(i).weight();
+    }
+
+    /** The same heuristic as estimatedDistanceToGoal(Integer, Integer). */
+    @Override
+    public double estimatedDistanceToGoal(int s, int goal) {
+        if (s == goal) {
+            return 0.0;
+        }
+        double estimate = Double.POSITIVE_INFINITY;
+        for (WeightedEdge<Integer> e : adj[s].list) {
+            if (e.weight() < estimate) {
+                estimate = e.weight();
+            }
+        }
+        return estimate;
+    }
+
     public void addEdge(int p, int q, double w) {
         WeightedEdge<Integer> e = new WeightedEdge<>(p, q, w);
         adj[p].list.add(e);
+        reverseAdj[q].list.add(e.flip());
     }
 }
@@ -5,9 +5,32 @@ import astar.WeightedEdge;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
-/** An implementation of the AStarGraph class. */
+/**
+ * An implementation of the AStarGraph class. Its heuristic is the Manhattan
+ * distance, or a pattern database when one is given and covers the goal.
+ */
 public class BoardGraph implements AStarGraph<BoardState> {
+    // past this many goals, the tables are dropped and built again as they are asked about
+    private static final int MAX_GOAL_TABLES = 64;
+
+    private final PatternDatabase patterns;
+    // by goal, so concurrent queries toward different goals don't keep replacing each other's
+    private final ConcurrentHashMap<BoardState, GoalTable> goalTables = new ConcurrentHashMap<>();
+    // the table last asked about, which spares the map lookup when one goal is queried at a time
+    private volatile GoalTable lastTable;
+
+    /** Creates a graph that uses the Manhattan distance heuristic. */
+    public BoardGraph() {
+        this(null);
+    }
+
+    /** Creates a graph that uses the given pattern database, if not null, where it applies. */
+    public BoardGraph(PatternDatabase patterns) {
+        this.patterns = patterns;
+    }
+
     @Override
     public List<WeightedEdge<BoardState>> neighbors(BoardState b) {
         List<BoardState> neighbors = b.neighbors();
@@ -18,42 +41,86 @@ public class BoardGraph implements AStarGraph<BoardState> {
         return neighborEdges;
     }
 
+    /** Every move costs 1, so the boards are passed on without making any edges. */
     @Override
-    public double estimatedDistanceToGoal(BoardState s, BoardState goal) {
-        int maxVal = s.size() * s.size();
+    public void forEachNeighbor(BoardState b, NeighborConsumer<BoardState> action) {
+        b.forEachNeighbor(action);
+    }
 
+    @Override
+    public double estimatedDistanceToGoal(BoardState s, BoardState goal) {
+        if (patterns != null && patterns.supports(s, goal)) {
+            return patterns.estimate(s);
+        }
+        int[][] distance = goalDistance(goal);
         int totalDistance = 0;
-        for (int i = 1; i < maxVal; i += 1) {
-            totalDistance += manhattanDistance(s, goal, i);
+        for (int p = 0; p < s.size() * s.size(); p += 1) {
+            int tile = s.tile(p);
+            if (tile != 0) {
+                totalDistance += distance[tile][p];
+            }
         }
         return totalDistance;
     }
 
-    private int manhattanDistance(BoardState b1, BoardState b2, int n) {
-        int b1row = 0;
-        int b1col = 0;
-        for (int i = 0; i < b1.size(); i += 1) {
-            for (int j = 0; j < b1.size(); j += 1) {
-                if (b1.tileAt(i, j) == n) {
-                    b1row = i;
-                    b1col = j;
-                    break;
-                }
+    /** The pattern database doesn't change incrementally, so only the Manhattan distance does. */
+    @Override
+    public boolean hasHeuristicDelta(BoardState goal) {
+        return patterns == null || !patterns.supports(goal, goal);
+    }
+
+    /**
+     * Only the tile slid into the blank moves, so the Manhattan distance changes by
+     * the difference in that tile's distance to where it belongs.
+     */
+    @Override
+    public double heuristicDelta(BoardState from, BoardState to, BoardState goal) {
+        if (!hasHeuristicDelta(goal)) {
+            return AStarGraph.super.heuristicDelta(from, to, goal);
+        }
+        int[][] distance = goalDistance(goal);
+        int oldPosition = to.blankIndex();
+        int newPosition = from.blankIndex();
+        int tile = from.tile(oldPosition);
+        return distance[tile][newPosition] - distance[tile][oldPosition];
+    }
+
+    /** Returns the goal's table, building it the first time the goal is asked about. */
+    private int[][] goalDistance(BoardState goal) {
+        GoalTable table = lastTable;
+        if (table != null && table.goal.equals(goal)) {
+            return table.distance;
+        }
+        table = goalTables.get(goal);
+        if (table == null) {
+            if (goalTables.size() >= MAX_GOAL_TABLES) {
+                goalTables.clear();
             }
+            table = goalTables.computeIfAbsent(goal, GoalTable::new);
         }
+        lastTable = table;
+        return table.distance;
+    }
 
-        int b2row = 0;
-        int b2col = 0;
-        for (int i = 0; i < b2.size(); i += 1) {
-            for (int j = 0; j < b2.size(); j += 1) {
-                if (b2.tileAt(i, j) == n) {
-                    b2row = i;
-                    b2col = j;
-                    break;
+    /** The Manhattan distance from each position to where each tile is in a goal. */
+    private static final class GoalTable {
+        private final BoardState goal;
+        // distance[t][p] is the distance from position p to tile t's position in the goal
+        private final int[][] distance;
+
+        private GoalTable(BoardState goal) {
+            this.goal = goal;
+            int N = goal.size();
+            int[] goalPosition = new int[N * N];
+            for (int p = 0; p < N * N; p += 1) {
+                goalPosition[goal.tile(p)] = p;
+            }
+            distance = new int[N * N][N * N];
+            for (int t = 1; t < N * N; t += 1) {
+                for (int p = 0; p < N * N; p += 1) {
+                    distance[t][p] = Math.abs(p / N - goalPosition[t] / N) + Math.abs(p % N - goalPosition[t] % N);
                 }
             }
         }
-
-        return Math.abs(b1row - b2row) + Math.abs(b1col - b2col);
     }
 }
@@ -1,11 +1,11 @@
 package astar.slidingpuzzle;
 
+import astar.AStarGraph.NeighborConsumer;
 import edu.princeton.cs.algs4.In;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
 
 /**
  * An implementation of a sliding puzzle. The code is obfuscated to deter
@@ -14,19 +14,55 @@ import java.util.Objects;
  */
 public class BoardState {
     private static final int BLANK = 0;
+    // boards up to this size fit in one long, a nibble per tile
+    private static final int MAX_PACKED_SIZE = 4;
+
     private final int N;
-    private final int[] tiles;
+    // tile p, in row-major order, is in bits [4p, 4p + 4) of packed, or for larger
+    // boards in words, with as many tiles per word as fit whole
+    private final long packed;
+    private final long[] words;
+    private final int blank;
+    // the XOR of zobrist(tile, position) over every tile but the blank
+    private final long hash;
 
     public BoardState(int[][] tiles) {
         this.N = tiles.length;
 
-        this.tiles = new int[N * N];
+        long p = 0;
+        long[] w = N > MAX_PACKED_SIZE ? new long[wordsFor(N)] : null;
+        int b = -1;
+        long h = 0;
         for (int i1ijil = N - 1; i1ijil >= 0; i1ijil -= 1) {
             for (int ijij1lj = N - 1; ijij1lj >= 0; ijij1lj -= 1) {
-                long index = to1D(i1ijil, ijij1lj);
-                this.tiles[(int) index] = tiles[i1ijil][ijij1lj];
+                int index = (int) to1D(i1ijil, ijij1lj);
+                long tile = tiles[i1ijil][ijij1lj];
+                if (tile == BLANK) {
+                    b = index;
+                } else {
+                    h ^= zobrist((int) tile, index);
+                }
+                if (w == null) {
+                    p |= tile << (4 * index);
+                } else {
+                    int bits = bitsFor(N);
+                    int perWord = 64 / bits;
+                    w[index / perWord] |= tile << (bits * (index % perWord));
+                }
             }
         }
+        this.packed = p;
+        this.words = w;
+        this.blank = b;
+        this.hash = h;
+    }
+
+    private BoardState(int N, long packed, long[] words, int blank, long hash) {
+        this.N = N;
+        this.packed = packed;
+        this.words = words;
+        this.blank = blank;
+        this.hash = hash;
     }
 
     public static BoardState readBoard(String filename) {
@@ -52,37 +88,87 @@ public class BoardState {
     }
 
     public List<BoardState> neighbors() {
-        List<BoardState> neighbors = new ArrayList<>();
-        int hug = size();
-        int bug = -1;
-        int zug = -1;
-        for (int rug = 0; rug < hug; rug++) {
-            for (int tug = 0; tug < hug; tug++) {
-                if (tileAt(rug, tug) == BLANK) {
-                    bug = rug;
-                    zug = tug;
-                }
-            }
+        List<BoardState> neighbors = new ArrayList<>(4);
+        forEachNeighbor((n, weight) -> neighbors.add(n));
+        return neighbors;
+    }
+
+    /**
+     * Calls action on each board reachable by sliding one tile into the blank, in
+     * the same order as neighbors(), with a weight of 1 for every move. Takes the
+     * graph's consumer directly so BoardGraph can pass it on without wrapping it.
+     */
+    public void forEachNeighbor(NeighborConsumer<BoardState> action) {
+        int row = blank / N;
+        int col = blank % N;
+        if (row > 0) {
+            action.accept(slide(blank - N), 1);
         }
-        int[][] ili1li1 = new int[hug][hug];
-        for (int pug = 0; pug < hug; pug++) {
-            for (int yug = 0; yug < hug; yug++) {
-                ili1li1[pug][yug] = tileAt(pug, yug);
-            }
+        if (col > 0) {
+            action.accept(slide(blank - 1), 1);
         }
-        for (int l11il = 0; l11il < hug; l11il++) {
-            for (int lil1il1 = 0; lil1il1 < hug; lil1il1++) {
-                if (Math.abs(-bug + l11il) + Math.abs(lil1il1 - zug) - 1 == 0) {
-                    ili1li1[bug][zug] = ili1li1[l11il][lil1il1];
-                    ili1li1[l11il][lil1il1] = BLANK;
-                    BoardState neighbor = new BoardState(ili1li1);
-                    neighbors.add(neighbor);
-                    ili1li1[l11il][lil1il1] = ili1li1[bug][zug];
-                    ili1li1[bug][zug] = BLANK;
-                }
-            }
+        if (col < N - 1) {
+            action.accept(slide(blank + 1), 1);
         }
-        return neighbors;
+        if (row < N - 1) {
+            action.accept(slide(blank + N), 1);
+        }
+    }
+
+    /**
+     * Returns the board with the tile at the given index slid into the blank. Since
+     * the blank is 0, the tile's bits are set at the blank and cleared where it was,
+     * and the hash changes only by the tile's old and new keys.
+     */
+    private BoardState slide(int from) {
+        int tile = tile(from);
+        long h = hash ^ zobrist(tile, from) ^ zobrist(tile, blank);
+        if (words == null) {
+            long moved = packed & ~(0xFL << (4 * from)) | (long) tile << (4 * blank);
+            return new BoardState(N, moved, null, from, h);
+        }
+        int bits = bitsFor(N);
+        int perWord = 64 / bits;
+        long[] moved = words.clone();
+        moved[from / perWord] &= ~(((1L << bits) - 1) << (bits * (from % perWord)));
+        moved[blank / perWord] |= (long) tile << (bits * (blank % perWord));
+        return new BoardState(N, packed, moved, from, h);
+    }
+
+    /** Returns the tile at the given row-major index. */
+    int tile(int index) {
+        if (words == null) {
+            return (int) (packed >>> (4 * index)) & 0xF;
+        }
+        int bits = bitsFor(N);
+        int perWord = 64 / bits;
+        return (int) (words[index / perWord] >>> (bits * (index % perWord))) & ((1 << bits) - 1);
+    }
+
+    /** Returns the row-major index of the blank. */
+    int blankIndex() {
+        return blank;
+    }
+
+    /** The number of bits a tile takes on boards larger than MAX_PACKED_SIZE. */
+    private static int bitsFor(int N) {
+        return 32 - Integer.numberOfLeadingZeros(N * N - 1);
+    }
+
+    private static int wordsFor(int N) {
+        int perWord = 64 / bitsFor(N);
+        return (N * N + perWord - 1) / perWord;
+    }
+
+    /**
+     * The Zobrist key of a tile at a position, mixed from the pair with the
+     * SplitMix64 finalizer rather than looked up, so no table is kept per size.
+     */
+    private static long zobrist(int tile, int position) {
+        long z = ((long) tile << 32 | position) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
     }
 
     private long to1D(int i1il1il1i, int i1li1li1l) {
@@ -100,7 +186,7 @@ public class BoardState {
         if (j < 0 || j >= N) {
             throw new IndexOutOfBoundsException("column must be between 0 and " + (N - 1));
         }
-        return tiles[(int) to1D(i, j)];
+        return tile((int) to1D(i, j));
     }
 
     @Override
@@ -112,15 +198,15 @@ public class BoardState {
             return false;
         }
         BoardState that = (BoardState) o;
-        return N == that.N
-                && Arrays.equals(tiles, that.tiles);
+        return hash == that.hash
+                && N == that.N
+                && packed == that.packed
+                && Arrays.equals(words, that.words);
     }
 
     @Override
     public int hashCode() {
-        int result = Objects.hash(N);
-        result = 31 * result + Arrays.hashCode(tiles);
-        return result;
+        return (int) (hash ^ (hash >>> 32));
     }
 
     public static BoardState solved(int N) {
@@ -0,0 +1,28 @@
+package astar.slidingpuzzle;
+
+import astar.SolutionPrinter;
+
+/**
+ * Showcases how the IDAStarSolver can solve the elite sliding puzzles, which run
+ * AStarSolver out of memory, since it only keeps the current path in memory.
+ */
+public class DemoIDAStarPuzzles {
+    private static String[] elitePuzzles = {
+        "ElitePuzzle1.txt",
+        "ElitePuzzle2.txt",
+        "ElitePuzzle3.txt",
+    };
+
+    public static void main(String[] args) {
+        System.out.println(elitePuzzles.length + " puzzle files being run.");
+        for (String puzzleFile : elitePuzzles) {
+            BoardState start = BoardState.readBoard("data/puzzles/" + puzzleFile);
+            BoardState goal = BoardState.solved(start.size());
+
+            System.out.println(puzzleFile + ":");
+            IDAStarSolver solver = new IDAStarSolver(start, goal, 120);
+            SolutionPrinter.summarizeOutcome(solver);
+            System.out.println(solver.iterations() + " iterations, " + solver.nodesExpanded() + " boards expanded.");
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package astar.slidingpuzzle;
+
+import astar.AStarSolver;
+import astar.SolutionPrinter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Showcases how a pattern database cuts down the number of boards AStarSolver
+ * explores on the hard puzzles, compared to the Manhattan distance. The database
+ * is built and saved the first time, which takes a minute or so for 4x4 boards,
+ * and memory-mapped from the file on later runs.
+ */
+public class DemoPatternDatabase {
+    private static String[] hardPuzzles = {
+        "HardPuzzle1.txt",
+        "HardPuzzle2.txt",
+        "HardPuzzle3.txt",
+    };
+
+    public static void main(String[] args) throws IOException {
+        System.out.println(hardPuzzles.length + " puzzle files being run.");
+        for (String puzzleFile : hardPuzzles) {
+            BoardState start = BoardState.readBoard("data/puzzles/" + puzzleFile);
+            int N = start.size();
+            BoardState goal = BoardState.solved(N);
+            PatternDatabase pdb = patternDatabase(N);
+
+            System.out.println(puzzleFile + " with the Manhattan distance:");
+            AStarSolver<BoardState> manhattan = new AStarSolver<>(new BoardGraph(), start, goal, 30);
+            SolutionPrinter.summarizeOutcome(manhattan);
+
+            System.out.println(puzzleFile + " with the pattern database:");
+            AStarSolver<BoardState> patterns = new AStarSolver<>(new BoardGraph(pdb), start, goal, 30);
+            SolutionPrinter.summarizeOutcome(patterns);
+        }
+    }
+
+    private static PatternDatabase patternDatabase(int N) throws IOException {
+        Path file = Paths.get("data/pdb/" + N + "x" + N + ".pdb");
+        boolean saved = Files.exists(file);
+        long start = System.nanoTime();
+        PatternDatabase pdb = PatternDatabase.loadOrBuild(file, N);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%s %s in %.3f seconds, %d bytes.%n",
+                          file, saved ? "loaded" : "built", seconds, Files.size(file));
+        return pdb;
+    }
+}
@@ -0,0 +1,51 @@
+package astar.slidingpuzzle;
+
+import astar.SolutionPrinter;
+import astar.SolverService;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Showcases how a SolverService solves several puzzles at once, sharing one
+ * BoardGraph and its pattern database between the threads, unlike
+ * DemoRunSeveralPuzzles, which solves them one after another.
+ */
+public class DemoSolverService {
+    private static String[] puzzleFiles = {
+        "BasicPuzzle1.txt",
+        "BasicPuzzle2.txt",
+        "BasicPuzzle3.txt",
+        "BasicPuzzle4.txt",
+        "BasicPuzzle5.txt",
+        "HardPuzzle1.txt",
+        "HardPuzzle2.txt",
+        "HardPuzzle3.txt",
+    };
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        List<BoardState> starts = new ArrayList<>();
+        List<BoardState> goals = new ArrayList<>();
+        for (String puzzleFile : puzzleFiles) {
+            BoardState start = BoardState.readBoard("data/puzzles/" + puzzleFile);
+            starts.add(start);
+            goals.add(BoardState.solved(start.size()));
+        }
+
+        // built or loaded once, then read by every query for 4x4 boards
+        PatternDatabase pdb = PatternDatabase.loadOrBuild(Paths.get("data/pdb/4x4.pdb"), 4);
+        BoardGraph spg = new BoardGraph(pdb);
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        try (SolverService<BoardState> service = new SolverService<>(spg, 30, threads, 2 * threads)) {
+            List<SolverService.Result<BoardState>> results = service.solveAll(starts, goals);
+            for (int i = 0; i < results.size(); i++) {
+                System.out.println(puzzleFiles[i] + ", answered in " + results.get(i).latency() + "s:");
+                SolutionPrinter.summarizeOutcome(results.get(i).solver());
+            }
+            System.out.println(service.summary());
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package astar.slidingpuzzle;
+
+import astar.ShortestPathsSolver;
+import edu.princeton.cs.algs4.Stopwatch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Solves sliding puzzles with iterative-deepening A* (IDA*): a series of depth
+ * first searches, each cut off where the number of moves so far plus the
+ * Manhattan distance heuristic exceeds a threshold, which starts at the
+ * heuristic of the start board and rises to the smallest value that was cut
+ * off each time. Only the current path is stored, so memory use is proportional
+ * to the length of the solution rather than to the number of boards seen.
+ *
+ * The search slides tiles back and forth on a single array instead of creating
+ * BoardStates, updates the heuristic incrementally, and never moves the tile
+ * that was just moved straight back. Puzzles that cannot be solved are detected
+ * from their permutation parity before searching.
+ *
+ * @see ShortestPathsSolver for more method documentation
+ */
+public class IDAStarSolver implements ShortestPathsSolver<BoardState> {
+    // the time is only checked once this many boards have been expanded since the last check
+    private static final int TIME_CHECK_INTERVAL = 1 << 14;
+
+    // returned by search instead of a threshold
+    private static final int FOUND = -1;
+    private static final int TIMED_OUT = -2;
+
+    private final int N;
+    private final int[] tiles;
+    // goalDistance[t][p] is the Manhattan distance from position p to where tile t belongs
+    private final int[][] goalDistance;
+    private int blank;
+
+    // the position of the tile slid into the blank by each move of the current path
+    private int[] path = new int[64];
+
+    private final Stopwatch sw;
+    private final double timeout;
+    private int untilTimeCheck = TIME_CHECK_INTERVAL;
+
+    private SolverOutcome outcome;
+    private List<BoardState> solution;
+    private double solutionWeight;
+    private double explorationTime;
+    private long nodesExpanded;
+    private int iterations;
+
+    /**
+     * Immediately solves and stores the result of running IDA* search, computing
+     * everything necessary for all other methods to return their results in
+     * constant time. The timeout is given in seconds.
+     */
+    public IDAStarSolver(BoardState start, BoardState goal, double timeout) {
+        sw = new Stopwatch();
+        this.timeout = timeout;
+        if (start.size() != goal.size()) {
+            throw new IllegalArgumentException("Start and goal boards must be the same size.");
+        }
+        N = start.size();
+        tiles = new int[N * N];
+        int[] goalPosition = new int[N * N];
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                tiles[i * N + j] = start.tileAt(i, j);
+                goalPosition[goal.tileAt(i, j)] = i * N + j;
+            }
+        }
+        goalDistance = new int[N * N][N * N];
+        for (int t = 1; t < N * N; t++) {
+            for (int p = 0; p < N * N; p++) {
+                goalDistance[t][p] = Math.abs(p / N - goalPosition[t] / N) + Math.abs(p % N - goalPosition[t] % N);
+            }
+        }
+        solution = new ArrayList<>();
+
+        if (!solvable(goalPosition)) {
+            outcome = SolverOutcome.UNSOLVABLE;
+            explorationTime = sw.elapsedTime();
+            return;
+        }
+
+        int h = 0;
+        for (int p = 0; p < N * N; p++) {
+            if (tiles[p] == 0) {
+                blank = p;
+            } else {
+                h += goalDistance[tiles[p]][p];
+            }
+        }
+
+        int threshold = h;
+        while (true) {
+            iterations++;
+            int result = search(0, threshold, -1, h);
+            if (result == FOUND) {
+                outcome = SolverOutcome.SOLVED;
+                solutionWeight = threshold;
+                solution = replay(start, threshold);
+                break;
+            }
+            if (result == TIMED_OUT) {
+                outcome = SolverOutcome.TIMEOUT;
+                break;
+            }
+            threshold = result;
+        }
+        explorationTime = sw.elapsedTime();
+    }
+
+    /**
+     * Searches below the current board, which is depth moves from the start and has
+     * heuristic h, and returns FOUND, TIMED_OUT or the smallest f-value over the
+     * threshold that was cut off.
+     */
+    private int search(int depth, int threshold, int previousBlank, int h) {
+        int f = depth + h;
+        if (f > threshold) {
+            return f;
+        }
+        // a Manhattan distance of 0 means every tile, and so the blank, is in place
+        if (h == 0) {
+            return FOUND;
+        }
+        if (--untilTimeCheck == 0) {
+            untilTimeCheck = TIME_CHECK_INTERVAL;
+            if (sw.elapsedTime() >= timeout) {
+                return TIMED_OUT;
+            }
+        }
+        nodesExpanded++;
+        if (depth == path.length) {
+            path = Arrays.copyOf(path, 2 * depth);
+        }
+
+        int min = Integer.MAX_VALUE;
+        int row = blank / N;
+        int col = blank % N;
+        // the same order as BoardState.neighbors
+        for (int move = 0; move < 4; move++) {
+            int from;
+            if (move == 0 && row > 0) {
+                from = blank - N;
+            } else if (move == 1 && col > 0) {
+                from = blank - 1;
+            } else if (move == 2 && col < N - 1) {
+                from = blank + 1;
+            } else if (move == 3 && row < N - 1) {
+                from = blank + N;
+            } else {
+                continue;
+            }
+            if (from == previousBlank) {
+                continue;
+            }
+
+            // slide the tile at from into the blank
+            int tile = tiles[from];
+            int to = blank;
+            int nextH = h - goalDistance[tile][from] + goalDistance[tile][to];
+            tiles[to] = tile;
+            tiles[from] = 0;
+            blank = from;
+            path[depth] = from;
+
+            int result = search(depth + 1, threshold, to, nextH);
+
+            // and slide it back
+            tiles[from] = tile;
+            tiles[to] = 0;
+            blank = to;
+
+            if (result == FOUND || result == TIMED_OUT) {
+                return result;
+            }
+            min = Math.min(min, result);
+        }
+        return min;
+    }
+
+    /** Builds the BoardStates along the path found, from the start board. */
+    private List<BoardState> replay(BoardState start, int moves) {
+        List<BoardState> boards = new ArrayList<>();
+        boards.add(start);
+        int[][] grid = new int[N][N];
+        int b = -1;
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                grid[i][j] = start.tileAt(i, j);
+                if (grid[i][j] == 0) {
+                    b = i * N + j;
+                }
+            }
+        }
+        for (int k = 0; k < moves; k++) {
+            int from = path[k];
+            grid[b / N][b % N] = grid[from / N][from % N];
+            grid[from / N][from % N] = 0;
+            b = from;
+            boards.add(new BoardState(grid));
+        }
+        return boards;
+    }
+
+    /**
+     * Returns true iff the goal can be reached: the permutation taking the start
+     * positions to the goal positions, counting the blank as a tile, must have the
+     * same parity as the Manhattan distance the blank has to travel.
+     */
+    private boolean solvable(int[] goalPosition) {
+        int[] target = new int[N * N];
+        for (int p = 0; p < N * N; p++) {
+            target[p] = goalPosition[tiles[p]];
+        }
+        boolean[] seen = new boolean[N * N];
+        int transpositions = 0;
+        int blankStart = -1;
+        for (int p = 0; p < N * N; p++) {
+            if (tiles[p] == 0) {
+                blankStart = p;
+            }
+            if (!seen[p]) {
+                int length = 0;
+                for (int q = p; !seen[q]; q = target[q]) {
+                    seen[q] = true;
+                    length++;
+                }
+                transpositions += length - 1;
+            }
+        }
+        int blankGoal = goalPosition[0];
+        int blankDistance = Math.abs(blankStart / N - blankGoal / N) + Math.abs(blankStart % N - blankGoal % N);
+        return transpositions % 2 == blankDistance % 2;
+    }
+
+    @Override
+    public SolverOutcome outcome() {
+        return outcome;
+    }
+
+    @Override
+    public List<BoardState> solution() {
+        return solution;
+    }
+
+    @Override
+    public double solutionWeight() {
+        return solutionWeight;
+    }
+
+    /** The total number of boards expanded over all iterations, capped at Integer.MAX_VALUE. */
+    @Override
+    public int numStatesExplored() {
+        return (int) Math.min(Integer.MAX_VALUE, nodesExpanded);
+    }
+
+    /** The total number of boards expanded over all iterations. */
+    public long nodesExpanded() {
+        return nodesExpanded;
+    }
+
+    /** The number of depth-first searches run, one per threshold. */
+    public int iterations() {
+        return iterations;
+    }
+
+    @Override
+    public double explorationTime() {
+        return explorationTime;
+    }
+}
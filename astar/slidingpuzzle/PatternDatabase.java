@@ -0,0 +1,439 @@
+package astar.slidingpuzzle;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A disjoint additive pattern database heuristic for sliding puzzles whose goal
+ * is BoardState.solved(N).
+ *
+ * The tiles are split into groups. For each group, a table holds the fewest moves
+ * of that group's tiles needed to bring them to their goal positions from any
+ * placement, ignoring the other tiles except as places the blank can move through
+ * for free. Since every move moves a tile of exactly one group, the sum over the
+ * groups never overestimates, and it is much closer than Manhattan distance.
+ *
+ * The tables are built by a breadth-first search backward from the goal and take
+ * one byte per placement, indexed by the rank of the group's positions, so the
+ * 6-6-3 split of the 4x4 puzzle takes about 11.5 MB. They can be saved to a file
+ * and memory-mapped back, so the search only has to be done once.
+ */
+public final class PatternDatabase {
+    /** A 6-6-3 split of the tiles of the 4x4 puzzle. */
+    public static final int[][] PARTITION_4X4 = {{1, 5, 6, 9, 10, 13}, {7, 8, 11, 12, 14, 15}, {2, 3, 4}};
+
+    /** A 4-4 split of the tiles of the 3x3 puzzle. */
+    public static final int[][] PARTITION_3X3 = {{1, 2, 3, 4}, {5, 6, 7, 8}};
+
+    // at most this many tiles per group, so a group's positions and the blank fit in an int
+    private static final int MAX_GROUP_SIZE = 6;
+
+    private static final int MAGIC = 0x50444231;  // "PDB1"
+
+    private final int N;
+    private final int[][] groups;
+    // tables[g].get(rank) is the distance of group g's placement with the given rank
+    private final ByteBuffer[] tables;
+    // multipliers[g][i] turns the i-th position of group g into its contribution to the rank
+    private final int[][] multipliers;
+    private final BoardState goal;
+
+    private PatternDatabase(int N, int[][] groups, ByteBuffer[] tables) {
+        this.N = N;
+        this.groups = groups;
+        this.tables = tables;
+        this.goal = BoardState.solved(N);
+        multipliers = new int[groups.length][];
+        for (int g = 0; g < groups.length; g++) {
+            multipliers[g] = multipliers(N * N, groups[g].length);
+        }
+    }
+
+    /** Builds the tables for the standard partition of the given board size, 3 or 4. */
+    public static PatternDatabase build(int N) {
+        if (N == 3) {
+            return build(3, PARTITION_3X3);
+        }
+        if (N == 4) {
+            return build(4, PARTITION_4X4);
+        }
+        throw new IllegalArgumentException("No standard partition for " + N + "x" + N + " puzzles.");
+    }
+
+    /** Builds the tables for the given disjoint groups of tiles. */
+    public static PatternDatabase build(int N, int[][] groups) {
+        if (N < 2 || N > 4) {
+            throw new IllegalArgumentException("Pattern databases support 2x2 to 4x4 puzzles.");
+        }
+        checkGroups(N, groups);
+
+        int[][] copy = new int[groups.length][];
+        ByteBuffer[] tables = new ByteBuffer[groups.length];
+        for (int g = 0; g < groups.length; g++) {
+            copy[g] = groups[g].clone();
+            tables[g] = ByteBuffer.wrap(buildTable(N, copy[g]));
+        }
+        return new PatternDatabase(N, copy, tables);
+    }
+
+    /** Throws IllegalArgumentException unless the groups hold distinct tiles of an N-by-N puzzle. */
+    private static void checkGroups(int N, int[][] groups) {
+        boolean[] used = new boolean[N * N];
+        for (int[] group : groups) {
+            if (group.length < 1 || group.length > MAX_GROUP_SIZE) {
+                throw new IllegalArgumentException("Groups must have 1 to " + MAX_GROUP_SIZE + " tiles.");
+            }
+            for (int tile : group) {
+                if (tile < 1 || tile >= N * N || used[tile]) {
+                    throw new IllegalArgumentException("Groups must hold distinct tiles from 1 to " + (N * N - 1));
+                }
+                used[tile] = true;
+            }
+        }
+    }
+
+    /**
+     * Searches backward from the goal over placements of the group's tiles and the
+     * blank. Moving the blank onto a cell outside the group costs nothing, and
+     * swapping it with a group tile costs one, so the search handles one distance at
+     * a time: everything reachable for free is added to the current level, and
+     * everything one swap away to the next. A placement's distance is the smallest
+     * over all blank positions, which is the first level it is seen at.
+     */
+    private static byte[] buildTable(int N, int[] group) {
+        TableBuilder builder = new TableBuilder(N, group);
+        int k = group.length;
+        int goalState = 0;
+        for (int i = 0; i < k; i++) {
+            goalState |= (group[i] - 1) << (4 * i);
+        }
+        goalState |= (N * N - 1) << (4 * k);
+
+        // arrivals may repeat and include visited states; current holds each new state once
+        IntQueue arrivals = new IntQueue();
+        IntQueue current = new IntQueue();
+        arrivals.add(goalState);
+        for (int distance = 0; !arrivals.isEmpty(); distance++) {
+            IntQueue next = new IntQueue();
+            while (!arrivals.isEmpty()) {
+                int state = arrivals.poll();
+                if (builder.visit(state)) {
+                    current.add(state);
+                }
+            }
+            while (!current.isEmpty()) {
+                builder.expand(current.poll(), distance, current, next);
+            }
+            arrivals = next;
+        }
+        return builder.table;
+    }
+
+    /**
+     * The state of buildTable's search. A state packs the group's positions and
+     * then the blank's into 4 bits each.
+     */
+    private static final class TableBuilder {
+        private final int N;
+        private final int cells;
+        private final int k;
+        private final int[] multipliers;
+        private final byte[] table;
+        // visited is a bit set indexed by rank * cells + blank
+        private final long[] visited;
+        private final int[] positions;
+        private final int[] occupant;
+
+        private TableBuilder(int N, int[] group) {
+            this.N = N;
+            cells = N * N;
+            k = group.length;
+            multipliers = multipliers(cells, k);
+            int placements = placements(cells, k);
+            table = new byte[placements];
+            Arrays.fill(table, (byte) -1);
+            visited = new long[(int) (((long) placements * cells + 63) / 64)];
+            positions = new int[k];
+            occupant = new int[cells];
+        }
+
+        private int unpack(int state) {
+            for (int i = 0; i < k; i++) {
+                positions[i] = state >>> (4 * i) & 0xF;
+            }
+            return rank(positions, multipliers);
+        }
+
+        /** Marks the state as visited, and returns true iff it was not visited before. */
+        private boolean visit(int state) {
+            long index = (long) unpack(state) * cells + (state >>> (4 * k) & 0xF);
+            int word = (int) (index >>> 6);
+            long bit = 1L << index;
+            if ((visited[word] & bit) != 0) {
+                return false;
+            }
+            visited[word] |= bit;
+            return true;
+        }
+
+        /** Records the state's distance and queues the states one blank move away. */
+        private void expand(int state, int distance, IntQueue current, IntQueue next) {
+            int rank = unpack(state);
+            if (table[rank] == -1) {
+                table[rank] = (byte) distance;
+            }
+
+            int blank = state >>> (4 * k) & 0xF;
+            Arrays.fill(occupant, -1);
+            for (int i = 0; i < k; i++) {
+                occupant[positions[i]] = i;
+            }
+            int row = blank / N;
+            int col = blank % N;
+            for (int move = 0; move < 4; move++) {
+                int cell;
+                if (move == 0 && row > 0) {
+                    cell = blank - N;
+                } else if (move == 1 && col > 0) {
+                    cell = blank - 1;
+                } else if (move == 2 && col < N - 1) {
+                    cell = blank + 1;
+                } else if (move == 3 && row < N - 1) {
+                    cell = blank + N;
+                } else {
+                    continue;
+                }
+                int moved = state & ~(0xF << (4 * k)) | cell << (4 * k);
+                int tile = occupant[cell];
+                if (tile < 0) {
+                    if (visit(moved)) {
+                        current.add(moved);
+                    }
+                } else {
+                    // the group's tile slides into the blank's old cell
+                    next.add(moved & ~(0xF << (4 * tile)) | blank << (4 * tile));
+                }
+            }
+        }
+    }
+
+    /** Returns the number of ways to place k distinct tiles on the given number of cells. */
+    private static int placements(int cells, int k) {
+        int product = 1;
+        for (int i = 0; i < k; i++) {
+            product *= cells - i;
+        }
+        return product;
+    }
+
+    /**
+     * Returns the multipliers that rank k distinct positions out of cells: the i-th
+     * position, counted among the positions not used before it, is multiplied by
+     * the number of ways to place the positions after it.
+     */
+    private static int[] multipliers(int cells, int k) {
+        int[] m = new int[k];
+        int product = 1;
+        for (int i = k - 1; i >= 0; i--) {
+            m[i] = product;
+            product *= cells - i;
+        }
+        return m;
+    }
+
+    /** Returns the rank of k distinct positions, between 0 and cells! / (cells - k)! - 1. */
+    private static int rank(int[] positions, int[] multipliers) {
+        int rank = 0;
+        for (int i = 0; i < positions.length; i++) {
+            int p = positions[i];
+            int smaller = 0;
+            for (int j = 0; j < i; j++) {
+                if (positions[j] < p) {
+                    smaller++;
+                }
+            }
+            rank += (p - smaller) * multipliers[i];
+        }
+        return rank;
+    }
+
+    /** Returns true iff this database gives estimates for boards of the given size toward the given goal. */
+    public boolean supports(BoardState b, BoardState goal) {
+        return b.size() == N && this.goal.equals(goal);
+    }
+
+    /** Returns the sum over the groups of the moves needed to place that group's tiles. */
+    public int estimate(BoardState b) {
+        if (b.size() != N) {
+            throw new IllegalArgumentException("Board is not " + N + "x" + N + ".");
+        }
+        int[] where = new int[N * N];
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                where[b.tileAt(i, j)] = i * N + j;
+            }
+        }
+        int total = 0;
+        int[] positions = new int[MAX_GROUP_SIZE];
+        for (int g = 0; g < groups.length; g++) {
+            int[] group = groups[g];
+            for (int i = 0; i < group.length; i++) {
+                positions[i] = where[group[i]];
+            }
+            int rank = 0;
+            for (int i = 0; i < group.length; i++) {
+                int smaller = 0;
+                for (int j = 0; j < i; j++) {
+                    if (positions[j] < positions[i]) {
+                        smaller++;
+                    }
+                }
+                rank += (positions[i] - smaller) * multipliers[g][i];
+            }
+            total += tables[g].get(rank) & 0xFF;
+        }
+        return total;
+    }
+
+    /** The board size this database is for. */
+    public int size() {
+        return N;
+    }
+
+    /** The groups of tiles, one table each. */
+    public int[][] groups() {
+        int[][] copy = new int[groups.length][];
+        for (int g = 0; g < groups.length; g++) {
+            copy[g] = groups[g].clone();
+        }
+        return copy;
+    }
+
+    /**
+     * Saves the database: a header of big-endian ints (magic, N, number of groups,
+     * then each group's size and tiles) followed by each group's table.
+     */
+    public void save(Path file) throws IOException {
+        int headerInts = 3;
+        for (int[] group : groups) {
+            headerInts += 1 + group.length;
+        }
+        ByteBuffer header = ByteBuffer.allocate(4 * headerInts).order(ByteOrder.BIG_ENDIAN);
+        header.putInt(MAGIC).putInt(N).putInt(groups.length);
+        for (int[] group : groups) {
+            header.putInt(group.length);
+            for (int tile : group) {
+                header.putInt(tile);
+            }
+        }
+        header.flip();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            drain(channel, header);
+            for (ByteBuffer table : tables) {
+                drain(channel, table.duplicate().clear());
+            }
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /** Memory-maps a database saved by save, without reading the tables into the heap. */
+    public static PatternDatabase load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapped.order(ByteOrder.BIG_ENDIAN);
+            if (mapped.remaining() < 12 || mapped.getInt() != MAGIC) {
+                throw new IOException(file + " is not a pattern database");
+            }
+            int N = mapped.getInt();
+            int count = mapped.getInt();
+            if (N < 2 || N > 4 || count < 1 || count >= N * N) {
+                throw new IOException("Invalid pattern database header in " + file);
+            }
+            int[][] groups = new int[count][];
+            for (int g = 0; g < count; g++) {
+                int k = mapped.remaining() < 4 ? 0 : mapped.getInt();
+                if (k < 1 || k > MAX_GROUP_SIZE || mapped.remaining() < 4 * k) {
+                    throw new IOException("Invalid pattern database header in " + file);
+                }
+                groups[g] = new int[k];
+                for (int i = 0; i < k; i++) {
+                    groups[g][i] = mapped.getInt();
+                }
+            }
+            // estimate indexes arrays by these tiles, so a bad file must fail here rather than there
+            try {
+                checkGroups(N, groups);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Invalid pattern database header in " + file + ": " + e.getMessage(), e);
+            }
+
+            ByteBuffer[] tables = new ByteBuffer[count];
+            int offset = mapped.position();
+            for (int g = 0; g < count; g++) {
+                int length = placements(N * N, groups[g].length);
+                if (offset + length > mapped.capacity()) {
+                    throw new IOException("Truncated pattern database " + file);
+                }
+                tables[g] = mapped.duplicate().position(offset).limit(offset + length).slice();
+                offset += length;
+            }
+            return new PatternDatabase(N, groups, tables);
+        }
+    }
+
+    /** Loads the database from the file if it exists, and otherwise builds it and saves it there. */
+    public static PatternDatabase loadOrBuild(Path file, int N) throws IOException {
+        if (Files.exists(file)) {
+            return load(file);
+        }
+        PatternDatabase pdb = build(N);
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        pdb.save(file);
+        return pdb;
+    }
+
+    /** A growable FIFO queue of ints. */
+    private static final class IntQueue {
+        private int[] items = new int[1024];
+        private int head;
+        private int tail;
+
+        private void add(int item) {
+            if (tail == items.length) {
+                if (head > items.length / 2) {
+                    System.arraycopy(items, head, items, 0, tail - head);
+                } else {
+                    items = Arrays.copyOf(items, 2 * items.length);
+                    System.arraycopy(items, head, items, 0, tail - head);
+                }
+                tail -= head;
+                head = 0;
+            }
+            items[tail++] = item;
+        }
+
+        private int poll() {
+            return items[head++];
+        }
+
+        private boolean isEmpty() {
+            return head == tail;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package astar.wordladderpuzzle;
+
+import astar.AStarSolver;
+import astar.BidirectionalAStarSolver;
+import astar.ShortestPathsSolver;
+import astar.SolutionPrinter;
+
+/**
+ * Solves the same word ladder with AStarSolver and BidirectionalAStarSolver, and
+ * compares how many states each one explored.
+ */
+public class DemoBidirectionalWordPuzzle {
+    public static void main(String[] args) {
+        String start = "horse";
+        String goal = "nurse";
+
+        WordGraph wg = WordGraph.readWords("data/puzzles/words10000.txt");
+
+        System.out.println("Forward A*:");
+        ShortestPathsSolver<String> forward = new AStarSolver<>(wg, start, goal, 10);
+        SolutionPrinter.summarizeSolution(forward, "->");
+
+        System.out.println("Bidirectional A*:");
+        BidirectionalAStarSolver<String> bidirectional = new BidirectionalAStarSolver<>(wg, start, goal, 10);
+        SolutionPrinter.summarizeSolution(bidirectional, "->");
+        System.out.println(bidirectional.forwardStatesExplored() + " states explored from the start, "
+                + bidirectional.backwardStatesExplored() + " from the goal.");
+    }
+}
@@ -0,0 +1,32 @@
+package astar.wordladderpuzzle;
+
+import astar.AStarSolver;
+import astar.GoalDistanceCache;
+import astar.ShortestPathsSolver;
+import astar.SolutionPrinter;
+
+/**
+ * Showcases how a GoalDistanceCache answers many word ladders toward the same
+ * word: the first query searches backward from the goal once, and the rest
+ * just follow the tree it built. Each answer is compared with AStarSolver's.
+ */
+public class DemoGoalDistanceCache {
+    private static final String GOAL = "nurse";
+    private static final String[] STARTS = {"horse", "house", "mouse", "stone", "dream", "apple", "water"};
+
+    public static void main(String[] args) {
+        WordGraph wg = WordGraph.readWords("data/puzzles/words10000.txt", true);
+        GoalDistanceCache<String> cache = new GoalDistanceCache<>(wg, 64L << 20);
+
+        for (String start : STARTS) {
+            ShortestPathsSolver<String> cached = cache.solve(start, GOAL);
+            ShortestPathsSolver<String> searched = new AStarSolver<>(wg, start, GOAL, 10);
+            System.out.println(start + " -> " + GOAL + ": cached in " + cached.explorationTime()
+                               + "s, searched in " + searched.explorationTime() + "s");
+            SolutionPrinter.summarizeSolution(cached, "->");
+        }
+        System.out.println(cache.cachedGoals() + " goal(s) cached, " + cache.cachedVertices()
+                           + " vertices, about " + cache.estimatedBytes() / 1024 + " KB; "
+                           + cache.hits() + " hits, " + cache.misses() + " misses.");
+    }
+}
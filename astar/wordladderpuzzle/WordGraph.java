@@ -1,28 +1,66 @@
 package astar.wordladderpuzzle;
 
-import astar.AStarGraph;
+import astar.ReversibleAStarGraph;
 import astar.WeightedEdge;
 import edu.princeton.cs.algs4.In;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.IntConsumer;
 
 /**
  * A class that represents the graph of all english words. Word p has an edge
  * to word q if the edit distance between p and q is 1. For example, there is
  * an edge from "horse" to "hose", and "hose" to "horse". There is no edge from
  * "dog" to "deg", because deg isn't a word (according to words10000.txt).
+ * Since edit distance is symmetric, so is the graph, which makes it easy to
+ * search backward.
+ *
+ * Rather than comparing a word against the whole dictionary, the neighbors are
+ * looked up in an index built up front. Two words are one edit apart exactly
+ * when, ignoring case, they have the same length and match one of each other's
+ * wildcard patterns ("h*rse" for any letter in place of the 'o' of "horse"), or
+ * one is the other with a letter deleted ("hose" from "horse"). The adjacency
+ * lists of the dictionary words can also be computed once and kept in compressed
+ * sparse row form, as arrays of word ids.
  */
-public class WordGraph implements AStarGraph<String> {
+public class WordGraph implements ReversibleAStarGraph<String> {
+    private static final char WILDCARD = '*';
+    private static final int[] EMPTY = new int[0];
+
     private Set<String> words;
+    // the words by id, also in lowercase, and the ids of the words indexed under
+    // each key, all lowercase
+    private final String[] byId;
+    private final String[] lowercase;
+    private final Map<String, int[]> spellings;
+    private final Map<String, int[]> wildcards;
+    private final Map<String, int[]> deletions;
+
+    // if the adjacency lists are cached, those of word i are the ids
+    // targets[offsets[i]] up to targets[offsets[i + 1]]; otherwise all null
+    private final Map<String, Integer> ids;
+    private final int[] offsets;
+    private final int[] targets;
 
     /**
      * Creates a new WordGraph with the words from the specified file.
      */
     public static WordGraph readWords(String filename) {
+        return readWords(filename, false);
+    }
+
+    /**
+     * Creates a new WordGraph with the words from the specified file, computing
+     * and caching the neighbors of every word if cacheNeighbors is true.
+     */
+    public static WordGraph readWords(String filename, boolean cacheNeighbors) {
         Set<String> words = new HashSet<>();
 
         In in = new In(filename);
@@ -31,7 +69,7 @@ public class WordGraph implements AStarGraph<String> {
             words.add(w);
         }
 
-        return new WordGraph(words);
+        return new WordGraph(words, cacheNeighbors);
     }
 
     /**
@@ -63,18 +101,120 @@ public class WordGraph implements AStarGraph<String> {
 
     /** Creates a new WordGraph with the given words. */
     public WordGraph(Set<String> words) {
+        this(words, false);
+    }
+
+    /**
+     * Creates a new WordGraph with the given words, computing and caching the
+     * neighbors of every word if cacheNeighbors is true. The index is built from
+     * the words as they are now, so later changes to the set are not seen.
+     */
+    public WordGraph(Set<String> words, boolean cacheNeighbors) {
         this.words = words;
+        byId = words.toArray(new String[0]);
+        lowercase = new String[byId.length];
+
+        Map<String, IdList> spellingLists = new HashMap<>();
+        Map<String, IdList> wildcardLists = new HashMap<>();
+        Map<String, IdList> deletionLists = new HashMap<>();
+        for (int id = 0; id < byId.length; id++) {
+            String w = byId[id].toLowerCase();
+            lowercase[id] = w;
+            add(spellingLists, w, id);
+            for (int i = 0; i < w.length(); i++) {
+                add(wildcardLists, wildcard(w, i), id);
+                if (i == 0 || w.charAt(i) != w.charAt(i - 1)) {
+                    add(deletionLists, deletion(w, i), id);
+                }
+            }
+        }
+        spellings = freeze(spellingLists);
+        wildcards = freeze(wildcardLists);
+        deletions = freeze(deletionLists);
+
+        if (cacheNeighbors) {
+            ids = new HashMap<>();
+            offsets = new int[byId.length + 1];
+            IdList adjacent = new IdList();
+            for (int id = 0; id < byId.length; id++) {
+                ids.put(byId[id], id);
+                forEachNeighborId(byId[id], adjacent::add);
+                offsets[id + 1] = adjacent.size;
+            }
+            targets = Arrays.copyOf(adjacent.ids, adjacent.size);
+        } else {
+            ids = null;
+            offsets = null;
+            targets = null;
+        }
+    }
+
+    /** Returns w with the character at i replaced by the wildcard. */
+    private static String wildcard(String w, int i) {
+        return w.substring(0, i) + WILDCARD + w.substring(i + 1);
+    }
+
+    /** Returns w with the character at i deleted. */
+    private static String deletion(String w, int i) {
+        return w.substring(0, i) + w.substring(i + 1);
+    }
+
+    /**
+     * Calls action with the id of each word one edit away from s. Deleting any
+     * letter of a run gives the same word, so only the first of each run is
+     * deleted, here and in the index, and no word is found twice.
+     */
+    private void forEachNeighborId(String s, IntConsumer action) {
+        String a = s.toLowerCase();
+        for (int i = 0; i < a.length(); i++) {
+            // the same length, and different only at i
+            for (int id : wildcards.getOrDefault(wildcard(a, i), EMPTY)) {
+                if (lowercase[id].charAt(i) != a.charAt(i)) {
+                    action.accept(id);
+                }
+            }
+            // one letter shorter
+            if (i == 0 || a.charAt(i) != a.charAt(i - 1)) {
+                for (int id : spellings.getOrDefault(deletion(a, i), EMPTY)) {
+                    action.accept(id);
+                }
+            }
+        }
+        // one letter longer
+        for (int id : deletions.getOrDefault(a, EMPTY)) {
+            action.accept(id);
+        }
+    }
+
+    private static void add(Map<String, IdList> lists, String key, int id) {
+        lists.computeIfAbsent(key, k -> new IdList()).add(id);
+    }
+
+    private static Map<String, int[]> freeze(Map<String, IdList> lists) {
+        Map<String, int[]> frozen = new HashMap<>(2 * lists.size());
+        for (Map.Entry<String, IdList> e : lists.entrySet()) {
+            frozen.put(e.getKey(), Arrays.copyOf(e.getValue().ids, e.getValue().size));
+        }
+        return frozen;
     }
 
     @Override
     public List<WeightedEdge<String>> neighbors(String s) {
         List<WeightedEdge<String>> neighbors = new ArrayList<>();
-        for (String w : words) {
-            if (editDistance(s, w) == 1) {
-                neighbors.add(new WeightedEdge<>(s, w, 1));
+        forEachNeighbor(s, (w, weight) -> neighbors.add(new WeightedEdge<>(s, w, weight)));
+        return neighbors;
+    }
+
+    @Override
+    public void forEachNeighbor(String s, NeighborConsumer<String> action) {
+        Integer id = ids == null ? null : ids.get(s);
+        if (id != null) {
+            for (int i = offsets[id]; i < offsets[id + 1]; i++) {
+                action.accept(byId[targets[i]], 1);
             }
+        } else {
+            forEachNeighborId(s, w -> action.accept(byId[w], 1));
         }
-        return neighbors;
     }
 
     @Override
@@ -82,7 +222,36 @@ public class WordGraph implements AStarGraph<String> {
         return editDistance(s, goal);
     }
 
+    /** Every edge goes both ways, so the incoming edges are the outgoing ones. */
+    @Override
+    public List<WeightedEdge<String>> reverseNeighbors(String s) {
+        return neighbors(s);
+    }
+
+    @Override
+    public void forEachReverseNeighbor(String s, NeighborConsumer<String> action) {
+        forEachNeighbor(s, action);
+    }
+
+    @Override
+    public double estimatedDistanceFromStart(String s, String start) {
+        return editDistance(start, s);
+    }
+
     public Set<String> getWords() {
         return Collections.unmodifiableSet(this.words);
     }
+
+    /** A growable list of word ids. */
+    private static final class IdList {
+        private int[] ids = new int[2];
+        private int size;
+
+        private void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, 2 * size);
+            }
+            ids[size++] = id;
+        }
+    }
 }
@@ -0,0 +1,363 @@
+package seamcarving.util;
+
+import edu.princeton.cs.algs4.Picture;
+import edu.princeton.cs.algs4.StdOut;
+import seamcarving.AStarSeamCarver;
+import seamcarving.BandedSeamCarver;
+import seamcarving.PixelBuffer;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ *  Carves every image in a directory and saves the results to another directory.
+ *
+ *  Decoding, carving and encoding run as separate pipeline stages, each with its
+ *  own threads, connected by bounded queues. An image is only decoded once its
+ *  pixels fit in the pixel budget, which it holds until it has been saved, so the
+ *  budget caps the memory used by images in flight. PPM and PAM files are read
+ *  and written with PixelCodec, straight to and from the carver's pixels; other
+ *  formats go through Picture, which can only save PNG and JPEG files, so any
+ *  other file fails before it is decoded. At the end, prints the throughput and
+ *  how busy each stage was.
+ *
+ *  Usage: BatchCarver inputDir outputDir [--columns N] [--rows N]
+ *         [--decoders N] [--carvers N] [--encoders N] [--queue N] [--pixel-budget N]
+ */
+public class BatchCarver {
+    private static final int DEFAULT_COLUMNS = 50;
+    private static final int DEFAULT_ROWS = 0;
+    private static final int DEFAULT_QUEUE = 4;
+    private static final long DEFAULT_PIXEL_BUDGET = 64L * 1000 * 1000;
+
+    /** An image making its way through the pipeline. */
+    private static final class Job {
+        // marks the end of the input for the next stage
+        private static final Job END = new Job(null, 0);
+
+        private final File file;
+        private final int permits;
+        // exactly one of these holds the image, depending on its format
+        private Picture picture;
+        private PixelBuffer pixels;
+
+        private Job(File file, int permits) {
+            this.file = file;
+            this.permits = permits;
+        }
+    }
+
+    /** The threads of one stage and the time they spent working. */
+    private static final class Stage {
+        private final String name;
+        private final int threads;
+        private final AtomicLong busyNanos = new AtomicLong();
+        private final List<Thread> workers = new ArrayList<>();
+
+        private Stage(String name, int threads) {
+            if (threads < 1) {
+                throw new IllegalArgumentException(name + " needs at least one thread.");
+            }
+            this.name = name;
+            this.threads = threads;
+        }
+
+        private void start(Runnable body) {
+            for (int i = 0; i < threads; i++) {
+                Thread t = new Thread(body, name + "-" + i);
+                workers.add(t);
+                t.start();
+            }
+        }
+
+        private void join() throws InterruptedException {
+            for (Thread t : workers) {
+                t.join();
+            }
+        }
+    }
+
+    private final File outputDir;
+    private final int columns;
+    private final int rows;
+    private final int pixelBudget;
+    private final Semaphore budget;
+
+    private final ConcurrentLinkedQueue<File> inputs;
+    private final BlockingQueue<Job> decoded;
+    private final BlockingQueue<Job> carved;
+    private final Stage decode;
+    private final Stage carve;
+    private final Stage encode;
+
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    public BatchCarver(List<File> inputs, File outputDir, int columns, int rows,
+                       int decoders, int carvers, int encoders, int queueCapacity, long pixelBudget) {
+        if (columns < 0 || rows < 0) {
+            throw new IllegalArgumentException("Cannot remove a negative number of seams.");
+        }
+        if (pixelBudget < 1) {
+            throw new IllegalArgumentException("Pixel budget must be positive.");
+        }
+        this.inputs = new ConcurrentLinkedQueue<>(inputs);
+        this.outputDir = outputDir;
+        this.columns = columns;
+        this.rows = rows;
+        this.pixelBudget = (int) Math.min(Integer.MAX_VALUE, pixelBudget);
+        this.budget = new Semaphore(this.pixelBudget);
+        this.decoded = new ArrayBlockingQueue<>(queueCapacity);
+        this.carved = new ArrayBlockingQueue<>(queueCapacity);
+        this.decode = new Stage("decode", decoders);
+        this.carve = new Stage("carve", carvers);
+        this.encode = new Stage("encode", encoders);
+    }
+
+    /** Runs the whole batch and prints a summary of it. */
+    public void run() throws InterruptedException {
+        long start = System.nanoTime();
+        decode.start(this::decodeLoop);
+        carve.start(this::carveLoop);
+        encode.start(this::encodeLoop);
+
+        // each stage tells the next one it's done once all of its own threads have finished
+        decode.join();
+        for (int i = 0; i < carve.threads; i++) {
+            decoded.put(Job.END);
+        }
+        carve.join();
+        for (int i = 0; i < encode.threads; i++) {
+            carved.put(Job.END);
+        }
+        encode.join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        StdOut.printf("%d images carved, %d failed, in %.2fs: %.2f images/s\n",
+                      completed.get(), failed.get(), seconds, completed.get() / seconds);
+        for (Stage stage : List.of(decode, carve, encode)) {
+            double utilisation = stage.busyNanos.get() / 1e9 / (seconds * stage.threads);
+            StdOut.printf("  %-6s %2d threads, %5.1f%% busy\n", stage.name, stage.threads, 100 * utilisation);
+        }
+    }
+
+    private void decodeLoop() {
+        try {
+            File file;
+            while ((file = inputs.poll()) != null) {
+                // the result is saved under the same name, so don't carve what can't be saved
+                if (!canSave(file)) {
+                    fail(file, new IOException("cannot save this format, only PNG, JPEG, PPM and PAM"));
+                    continue;
+                }
+
+                // wait for room in the budget before allocating any pixels
+                int permits;
+                try {
+                    long pixels = PixelCodec.isSupported(file.toPath())
+                            ? PixelCodec.pixelCount(file.toPath()) : pixels(file);
+                    permits = (int) Math.min(pixelBudget, pixels);
+                } catch (IOException | RuntimeException e) {
+                    fail(file, e);
+                    continue;
+                }
+                budget.acquire(permits);
+
+                long start = System.nanoTime();
+                Job job = new Job(file, permits);
+                try {
+                    if (PixelCodec.isSupported(file.toPath())) {
+                        job.pixels = PixelCodec.read(file.toPath());
+                    } else {
+                        job.picture = new Picture(file);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    budget.release(permits);
+                    fail(file, e);
+                    continue;
+                } finally {
+                    decode.busyNanos.addAndGet(System.nanoTime() - start);
+                }
+                decoded.put(job);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void carveLoop() {
+        try {
+            Job job;
+            while ((job = decoded.take()) != Job.END) {
+                long start = System.nanoTime();
+                try {
+                    AStarSeamCarver sc = job.pixels != null
+                            ? new BandedSeamCarver(job.pixels) : new BandedSeamCarver(job.picture);
+                    for (int i = 0; i < columns && sc.width() > 1; i++) {
+                        sc.removeVerticalSeam(sc.findVerticalSeam());
+                    }
+                    for (int i = 0; i < rows && sc.height() > 1; i++) {
+                        sc.removeHorizontalSeam(sc.findHorizontalSeam());
+                    }
+                    if (job.pixels != null) {
+                        job.pixels = sc.pixels();
+                    } else {
+                        job.picture = sc.picture();
+                    }
+                } catch (RuntimeException e) {
+                    budget.release(job.permits);
+                    fail(job.file, e);
+                    continue;
+                } finally {
+                    carve.busyNanos.addAndGet(System.nanoTime() - start);
+                }
+                carved.put(job);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void encodeLoop() {
+        try {
+            Job job;
+            while ((job = carved.take()) != Job.END) {
+                long start = System.nanoTime();
+                try {
+                    File output = new File(outputDir, job.file.getName());
+                    if (job.pixels == null) {
+                        // Picture reports a failed write only by printing it, so check what it left behind
+                        Files.deleteIfExists(output.toPath());
+                        job.picture.save(output);
+                        if (output.length() == 0) {
+                            throw new IOException("could not write " + output);
+                        }
+                    } else if (output.getName().toLowerCase().endsWith(".pam")) {
+                        PixelCodec.writePam(job.pixels, output.toPath());
+                    } else {
+                        PixelCodec.writePpm(job.pixels, output.toPath());
+                    }
+                    completed.incrementAndGet();
+                } catch (IOException | RuntimeException e) {
+                    fail(job.file, e);
+                } finally {
+                    budget.release(job.permits);
+                    encode.busyNanos.addAndGet(System.nanoTime() - start);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** The number of images carved and saved. */
+    public int completed() {
+        return completed.get();
+    }
+
+    /** The number of images that could not be decoded, carved or saved. */
+    public int failed() {
+        return failed.get();
+    }
+
+    private void fail(File file, Exception e) {
+        failed.incrementAndGet();
+        System.err.println("Could not carve " + file + ": " + e.getMessage());
+    }
+
+    /** Returns true iff an image can be saved under the file's name. */
+    private static boolean canSave(File file) {
+        String name = file.getName().toLowerCase();
+        return PixelCodec.isSupported(file.toPath())
+                || name.endsWith(".png") || name.endsWith(".jpg");
+    }
+
+    /** Reads the dimensions of an image from its header and returns its number of pixels. */
+    private static long pixels(File file) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file)) {
+            if (in == null) {
+                throw new IOException("cannot open file");
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                throw new IOException("not a supported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in);
+                return (long) reader.getWidth(0) * reader.getHeight(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static void usage() {
+        System.err.println("Usage: BatchCarver inputDir outputDir [--columns N] [--rows N]"
+                + " [--decoders N] [--carvers N] [--encoders N] [--queue N] [--pixel-budget N]");
+        System.exit(2);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 2) {
+            usage();
+        }
+        File inputDir = new File(args[0]);
+        File outputDir = new File(args[1]);
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        int columns = DEFAULT_COLUMNS;
+        int rows = DEFAULT_ROWS;
+        int decoders = Math.max(1, cores / 4);
+        int carvers = Math.max(1, cores / 2);
+        int encoders = Math.max(1, cores / 4);
+        int queue = DEFAULT_QUEUE;
+        long pixelBudget = DEFAULT_PIXEL_BUDGET;
+
+        for (int i = 2; i < args.length; i += 2) {
+            if (i + 1 >= args.length) {
+                usage();
+            }
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--columns": columns = Integer.parseInt(value); break;
+                case "--rows": rows = Integer.parseInt(value); break;
+                case "--decoders": decoders = Integer.parseInt(value); break;
+                case "--carvers": carvers = Integer.parseInt(value); break;
+                case "--encoders": encoders = Integer.parseInt(value); break;
+                case "--queue": queue = Integer.parseInt(value); break;
+                case "--pixel-budget": pixelBudget = Long.parseLong(value); break;
+                default: usage();
+            }
+        }
+
+        File[] files = inputDir.listFiles(File::isFile);
+        if (files == null) {
+            System.err.println(inputDir + " is not a directory.");
+            System.exit(1);
+        }
+        Arrays.sort(files);
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            System.err.println("Could not create " + outputDir + ".");
+            System.exit(1);
+        }
+
+        StdOut.printf("Carving %d files from %s into %s\n", files.length, inputDir, outputDir);
+        new BatchCarver(Arrays.asList(files), outputDir, columns, rows,
+                        decoders, carvers, encoders, queue, pixelBudget).run();
+    }
+}
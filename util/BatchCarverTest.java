@@ -0,0 +1,78 @@
+package seamcarving.util;
+
+import edu.princeton.cs.algs4.Picture;
+import org.junit.Test;
+import seamcarving.PixelBuffer;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class BatchCarverTest {
+    private static File tempDir() throws IOException {
+        File dir = Files.createTempDirectory("batchcarver").toFile();
+        dir.deleteOnExit();
+        return dir;
+    }
+
+    /** Writes a good PPM, a good PNG, a GIF, a PNG that isn't one, and a PPM over the pixel budget. */
+    private static List<File> inputs(File dir) throws IOException {
+        File ppm = new File(dir, "a.ppm");
+        PixelCodec.writePpm(PixelBuffer.fromPicture(PictureUtils.randomPicture(20, 10)), ppm.toPath());
+        File png = new File(dir, "b.png");
+        PictureUtils.randomPicture(20, 10).save(png);
+        File gif = new File(dir, "c.gif");
+        ImageIO.write(new BufferedImage(20, 10, BufferedImage.TYPE_INT_RGB), "gif", gif);
+        File corrupt = new File(dir, "d.png");
+        Files.write(corrupt.toPath(), "not an image".getBytes(StandardCharsets.US_ASCII));
+        File oversize = new File(dir, "e.ppm");
+        PixelCodec.writePpm(PixelBuffer.fromPicture(PictureUtils.randomPicture(60, 40)), oversize.toPath());
+        for (File f : Arrays.asList(ppm, png, gif, corrupt, oversize)) {
+            f.deleteOnExit();
+        }
+        return Arrays.asList(ppm, png, gif, corrupt, oversize);
+    }
+
+    @Test(timeout = 30000)
+    public void carvesGoodImagesAndCountsFailuresTest() throws IOException, InterruptedException {
+        File output = tempDir();
+        /* The 60x40 image is over the budget, so it holds all of it while in flight */
+        BatchCarver batch = new BatchCarver(inputs(tempDir()), output, 5, 2, 2, 2, 2, 1, 1000);
+        batch.run();
+        assertEquals(3, batch.completed());
+        assertEquals(2, batch.failed());
+
+        PixelBuffer ppm = PixelCodec.read(new File(output, "a.ppm").toPath());
+        assertEquals(15, ppm.width());
+        assertEquals(8, ppm.height());
+        Picture png = new Picture(new File(output, "b.png"));
+        assertEquals(15, png.width());
+        assertEquals(8, png.height());
+        PixelBuffer oversize = PixelCodec.read(new File(output, "e.ppm").toPath());
+        assertEquals(55, oversize.width());
+        assertEquals(38, oversize.height());
+        assertFalse(new File(output, "c.gif").exists());
+        assertFalse(new File(output, "d.png").exists());
+        for (File f : output.listFiles()) {
+            f.deleteOnExit();
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void failedWritesAreNotCompletedTest() throws IOException, InterruptedException {
+        /* Nothing can be saved into a directory that doesn't exist */
+        File missing = new File(tempDir(), "missing");
+        BatchCarver batch = new BatchCarver(inputs(tempDir()), missing, 5, 0, 1, 1, 1, 1, 1000);
+        batch.run();
+        assertEquals(0, batch.completed());
+        assertEquals(5, batch.failed());
+    }
+}
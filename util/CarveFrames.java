@@ -0,0 +1,188 @@
+package seamcarving.util;
+
+import edu.princeton.cs.algs4.Picture;
+import edu.princeton.cs.algs4.StdOut;
+import seamcarving.FrameSequenceCarver;
+import seamcarving.PixelBuffer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ *  Carves a video stored as a directory of numbered frames with FrameSequenceCarver
+ *  and saves the carved frames under the same names in another directory.
+ *
+ *  Frames are read, carved and written by three threads connected by small bounded
+ *  queues, so only a few frames are in memory at once however long the clip is.
+ *  Carving itself is sequential, since each frame is guided by the one before it.
+ *  Frames are taken in file name order; PPM and PAM frames are read and written
+ *  with PixelCodec, other formats go through Picture.
+ *
+ *  Usage: CarveFrames inputDir outputDir [--columns N] [--rows N]
+ *         [--band N] [--weight W] [--queue N]
+ */
+public class CarveFrames {
+    private static final int DEFAULT_COLUMNS = 50;
+    private static final int DEFAULT_ROWS = 0;
+    private static final int DEFAULT_QUEUE = 2;
+
+    /** A frame on its way through the pipeline. */
+    private static final class Frame {
+        // marks the end of the sequence
+        private static final Frame END = new Frame(null, null);
+
+        private final File file;
+        private final PixelBuffer pixels;
+
+        private Frame(File file, PixelBuffer pixels) {
+            this.file = file;
+            this.pixels = pixels;
+        }
+    }
+
+    private static void usage() {
+        System.err.println("Usage: CarveFrames inputDir outputDir [--columns N] [--rows N]"
+                + " [--band N] [--weight W] [--queue N]");
+        System.exit(2);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 2) {
+            usage();
+        }
+        File inputDir = new File(args[0]);
+        File outputDir = new File(args[1]);
+
+        int columns = DEFAULT_COLUMNS;
+        int rows = DEFAULT_ROWS;
+        int band = FrameSequenceCarver.DEFAULT_BAND_RADIUS;
+        double weight = FrameSequenceCarver.DEFAULT_TEMPORAL_WEIGHT;
+        int queue = DEFAULT_QUEUE;
+        for (int i = 2; i < args.length; i += 2) {
+            if (i + 1 >= args.length) {
+                usage();
+            }
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--columns": columns = Integer.parseInt(value); break;
+                case "--rows": rows = Integer.parseInt(value); break;
+                case "--band": band = Integer.parseInt(value); break;
+                case "--weight": weight = Double.parseDouble(value); break;
+                case "--queue": queue = Integer.parseInt(value); break;
+                default: usage();
+            }
+        }
+
+        File[] files = inputDir.listFiles(File::isFile);
+        if (files == null) {
+            System.err.println(inputDir + " is not a directory.");
+            System.exit(1);
+        }
+        Arrays.sort(files);
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            System.err.println("Could not create " + outputDir + ".");
+            System.exit(1);
+        }
+
+        StdOut.printf("Carving %d frames from %s into %s\n", files.length, inputDir, outputDir);
+        FrameSequenceCarver carver = new FrameSequenceCarver(columns, rows, band, weight);
+        long start = System.nanoTime();
+        try {
+            carveFrames(files, outputDir, carver, queue);
+        } catch (RuntimeException e) {
+            System.err.println("Carving stopped: " + e.getMessage());
+            System.exit(1);
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        StdOut.printf("%d frames carved (%d key frames) in %.2fs: %.2f frames/s\n",
+                      carver.framesCarved(), carver.keyFrames(), seconds, carver.framesCarved() / seconds);
+    }
+
+    /**
+     * Reads, carves and writes the frames in order, with the reader and writer on
+     * threads of their own. If carving a frame fails, stops both threads, dropping
+     * the frames not yet written, and rethrows the exception once they have ended.
+     */
+    static void carveFrames(File[] files, File outputDir, FrameSequenceCarver carver, int queue)
+            throws InterruptedException {
+        BlockingQueue<Frame> decoded = new ArrayBlockingQueue<>(queue);
+        BlockingQueue<Frame> carved = new ArrayBlockingQueue<>(queue);
+
+        // a frame that cannot be read ends the sequence, since the frames after it would skip ahead
+        Thread reader = new Thread(() -> {
+            try {
+                for (File file : files) {
+                    try {
+                        decoded.put(new Frame(file, read(file)));
+                    } catch (IOException | RuntimeException e) {
+                        // being stopped interrupts the read, which is not worth reporting
+                        if (!Thread.currentThread().isInterrupted()) {
+                            System.err.println("Could not read " + file + ": " + e.getMessage());
+                        }
+                        break;
+                    }
+                }
+                decoded.put(Frame.END);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "read");
+
+        Thread writer = new Thread(() -> {
+            try {
+                Frame frame;
+                while ((frame = carved.take()) != Frame.END) {
+                    try {
+                        write(frame.pixels, new File(outputDir, frame.file.getName()));
+                    } catch (IOException | RuntimeException e) {
+                        if (!Thread.currentThread().isInterrupted()) {
+                            System.err.println("Could not write " + frame.file + ": " + e.getMessage());
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "write");
+
+        reader.start();
+        writer.start();
+        try {
+            Frame frame;
+            while ((frame = decoded.take()) != Frame.END) {
+                carved.put(new Frame(frame.file, carver.carve(frame.pixels)));
+            }
+            carved.put(Frame.END);
+        } catch (Throwable e) {
+            // the reader may be waiting for room in its queue and the writer for a frame that won't come
+            reader.interrupt();
+            writer.interrupt();
+            throw e;
+        } finally {
+            reader.join();
+            writer.join();
+        }
+    }
+
+    private static PixelBuffer read(File file) throws IOException {
+        if (PixelCodec.isSupported(file.toPath())) {
+            return PixelCodec.read(file.toPath());
+        }
+        return PixelBuffer.fromPicture(new Picture(file));
+    }
+
+    private static void write(PixelBuffer pixels, File file) throws IOException {
+        String name = file.getName().toLowerCase();
+        if (name.endsWith(".pam")) {
+            PixelCodec.writePam(pixels, file.toPath());
+        } else if (PixelCodec.isSupported(file.toPath())) {
+            PixelCodec.writePpm(pixels, file.toPath());
+        } else {
+            pixels.toPicture().save(file);
+        }
+    }
+}
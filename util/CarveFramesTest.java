@@ -0,0 +1,65 @@
+package seamcarving.util;
+
+import org.junit.Test;
+import seamcarving.FrameSequenceCarver;
+import seamcarving.PixelBuffer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CarveFramesTest {
+    /** Writes random frames of the given widths, all 10 pixels high, to a new directory. */
+    private static File[] frames(File dir, int... widths) throws IOException {
+        File[] files = new File[widths.length];
+        for (int i = 0; i < widths.length; i++) {
+            files[i] = new File(dir, "frame" + i + ".ppm");
+            PixelCodec.writePpm(PixelBuffer.fromPicture(PictureUtils.randomPicture(widths[i], 10)), files[i].toPath());
+        }
+        return files;
+    }
+
+    private static File tempDir() throws IOException {
+        File dir = Files.createTempDirectory("carveframes").toFile();
+        dir.deleteOnExit();
+        return dir;
+    }
+
+    @Test(timeout = 10000)
+    public void carvesEveryFrameTest() throws IOException, InterruptedException {
+        File[] files = frames(tempDir(), 20, 20, 20, 20);
+        File output = tempDir();
+        FrameSequenceCarver carver = new FrameSequenceCarver(5, 2);
+        CarveFrames.carveFrames(files, output, carver, 1);
+
+        assertEquals(4, carver.framesCarved());
+        for (File file : files) {
+            PixelBuffer carved = PixelCodec.read(new File(output, file.getName()).toPath());
+            assertEquals(15, carved.width());
+            assertEquals(8, carved.height());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void stopsWhenAFrameCannotBeCarvedTest() throws IOException, InterruptedException {
+        /* The second frame is narrower than the number of columns to remove, and the reader
+           has more frames than fit in the queue */
+        File[] files = frames(tempDir(), 20, 4, 20, 20, 20, 20);
+        FrameSequenceCarver carver = new FrameSequenceCarver(5, 0);
+        try {
+            CarveFrames.carveFrames(files, tempDir(), carver, 1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals(1, carver.framesCarved());
+        }
+
+        /* The reader and writer have ended rather than waiting on their queues */
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            assertTrue(!t.getName().equals("read") && !t.getName().equals("write") || !t.isAlive());
+        }
+    }
+}
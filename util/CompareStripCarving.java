@@ -0,0 +1,55 @@
+package seamcarving.util;
+
+import edu.princeton.cs.algs4.Picture;
+import edu.princeton.cs.algs4.StdOut;
+import seamcarving.BandedSeamCarver;
+import seamcarving.SeamCarver;
+import seamcarving.StripSeamCarver;
+
+/**
+ *  Removes the same number of vertical seams sequentially and with StripSeamCarver,
+ *  and prints the time each took and the total energy of each result.
+ *
+ *  Usage: CompareStripCarving [image] [seams] [strips] [overlap]
+ */
+public class CompareStripCarving {
+    private static final String IMAGE_PATH = "data/images/HJoceanSmall.png";
+    private static final int NUM_SEAMS = 150;
+    private static final int NUM_STRIPS = Runtime.getRuntime().availableProcessors();
+    private static final int OVERLAP = 8;
+
+    public static void main(String[] args) {
+        String path = args.length > 0 ? args[0] : IMAGE_PATH;
+        int seams = args.length > 1 ? Integer.parseInt(args[1]) : NUM_SEAMS;
+        int strips = args.length > 2 ? Integer.parseInt(args[2]) : NUM_STRIPS;
+        int overlap = args.length > 3 ? Integer.parseInt(args[3]) : OVERLAP;
+
+        Picture picture = new Picture(path);
+        StdOut.printf("%d-by-%d image, removing %d vertical seams\n", picture.width(), picture.height(), seams);
+
+        long start = System.nanoTime();
+        SeamCarver sc = new BandedSeamCarver(picture);
+        for (int i = 0; i < seams; i++) {
+            sc.removeVerticalSeam(sc.findVerticalSeam());
+        }
+        Picture sequential = sc.picture();
+        double sequentialTime = (System.nanoTime() - start) / 1e9;
+
+        start = System.nanoTime();
+        StripSeamCarver strip = new StripSeamCarver(strips, overlap);
+        Picture parallel = strip.removeVerticalSeams(picture, seams);
+        double parallelTime = (System.nanoTime() - start) / 1e9;
+
+        double sequentialEnergy = StripSeamCarver.totalEnergy(sequential);
+        double parallelEnergy = StripSeamCarver.totalEnergy(parallel);
+
+        StdOut.printf("Sequential:                        %8.3fs, total energy %.1f\n",
+                      sequentialTime, sequentialEnergy);
+        StdOut.printf("%2d strips with %2d columns overlap: %8.3fs, total energy %.1f\n",
+                      strips, overlap, parallelTime, parallelEnergy);
+        StdOut.printf("Energy difference: %+.1f (%+.3f%%), speedup %.2fx\n",
+                      parallelEnergy - sequentialEnergy,
+                      100 * (parallelEnergy - sequentialEnergy) / sequentialEnergy,
+                      sequentialTime / parallelTime);
+    }
+}
@@ -0,0 +1,309 @@
+package seamcarving.util;
+
+import seamcarving.PixelBuffer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ *  Reads and writes images straight between files and PixelBuffers through a
+ *  FileChannel, without the BufferedImage and per-pixel Color conversions of
+ *  Picture. Supports three formats:
+ *
+ *  - binary PPM (P6) with a maximum sample value of at most 255,
+ *  - PAM (P7) with GRAYSCALE, GRAYSCALE_ALPHA, RGB or RGB_ALPHA tuples and a
+ *    maximum sample value of at most 255,
+ *  - headerless raw ARGB, four big-endian bytes per pixel in row-major order,
+ *    whose width has to be given when reading.
+ */
+public class PixelCodec {
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    // the PAM tuple type for each supported depth
+    private static final String[] TUPLE_TYPES = {"GRAYSCALE", "GRAYSCALE_ALPHA", "RGB", "RGB_ALPHA"};
+
+    /**
+     * Returns true iff the file's extension is one of the formats read by read(Path).
+     * Files named .pnm are not, since they may just as well hold the grayscale or
+     * ASCII variants that read rejects.
+     */
+    public static boolean isSupported(Path file) {
+        String name = file.getFileName().toString().toLowerCase();
+        return name.endsWith(".ppm") || name.endsWith(".pam");
+    }
+
+    /** Reads a PPM or PAM image, recognized by its magic number. */
+    public static PixelBuffer read(Path file) throws IOException {
+        try (Input in = new Input(file)) {
+            Header header = readHeader(in, file);
+            PixelBuffer pixels = new PixelBuffer(header.width, header.height);
+            in.readSamples(pixels.data(), header.depth, header.maxval);
+            return pixels;
+        }
+    }
+
+    /** Reads only the header of a PPM or PAM image and returns its number of pixels. */
+    public static long pixelCount(Path file) throws IOException {
+        try (Input in = new Input(file)) {
+            Header header = readHeader(in, file);
+            return (long) header.width * header.height;
+        }
+    }
+
+    /** Reads a raw ARGB image of the given width; the height follows from the file size. */
+    public static PixelBuffer readRaw(Path file, int width) throws IOException {
+        if (width < 1) {
+            throw new IllegalArgumentException("Width must be positive.");
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0 || size % (4L * width) != 0) {
+                throw new IOException(file + " is not a raw ARGB image of width " + width);
+            }
+            // too many rows for an int is too large for a PixelBuffer either way
+            PixelBuffer pixels = new PixelBuffer(width, (int) Math.min(Integer.MAX_VALUE, size / (4L * width)));
+            int[] data = pixels.data();
+
+            ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE).order(ByteOrder.BIG_ENDIAN);
+            int filled = 0;
+            while (filled < data.length) {
+                buffer.clear();
+                buffer.limit((int) Math.min(CHUNK_SIZE, 4L * (data.length - filled)));
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer) < 0) {
+                        throw new IOException("Unexpected end of " + file);
+                    }
+                }
+                buffer.flip();
+                IntBuffer ints = buffer.asIntBuffer();
+                int count = ints.remaining();
+                ints.get(data, filled, count);
+                filled += count;
+            }
+            return pixels;
+        }
+    }
+
+    /** Writes the image as a binary PPM, dropping the alpha channel. */
+    public static void writePpm(PixelBuffer pixels, Path file) throws IOException {
+        String header = "P6\n" + pixels.width() + " " + pixels.height() + "\n255\n";
+        write(pixels, file, header, 3);
+    }
+
+    /** Writes the image as an RGB_ALPHA PAM. */
+    public static void writePam(PixelBuffer pixels, Path file) throws IOException {
+        String header = "P7\nWIDTH " + pixels.width() + "\nHEIGHT " + pixels.height()
+                + "\nDEPTH 4\nMAXVAL 255\nTUPLTYPE RGB_ALPHA\nENDHDR\n";
+        write(pixels, file, header, 4);
+    }
+
+    /** Writes the image as raw big-endian ARGB, without a header. */
+    public static void writeRaw(PixelBuffer pixels, Path file) throws IOException {
+        int[] data = pixels.data();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE).order(ByteOrder.BIG_ENDIAN);
+            int written = 0;
+            while (written < data.length) {
+                int count = Math.min(CHUNK_SIZE / 4, data.length - written);
+                buffer.clear();
+                buffer.asIntBuffer().put(data, written, count);
+                buffer.limit(4 * count);
+                drain(channel, buffer);
+                written += count;
+            }
+        }
+    }
+
+    /** Writes the header followed by depth (3 or 4) bytes per pixel. */
+    private static void write(PixelBuffer pixels, Path file, String header, int depth) throws IOException {
+        int[] data = pixels.data();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            drain(channel, ByteBuffer.wrap(header.getBytes(StandardCharsets.US_ASCII)));
+
+            ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE - CHUNK_SIZE % depth);
+            byte[] bytes = buffer.array();
+            int perChunk = buffer.capacity() / depth;
+            int i = 0;
+            while (i < data.length) {
+                int end = i + Math.min(data.length - i, perChunk);
+                int b = 0;
+                for (int p = i; p < end; p++) {
+                    int argb = data[p];
+                    bytes[b++] = (byte) (argb >>> 16);
+                    bytes[b++] = (byte) (argb >>> 8);
+                    bytes[b++] = (byte) argb;
+                    if (depth == 4) {
+                        bytes[b++] = (byte) (argb >>> 24);
+                    }
+                }
+                buffer.clear();
+                buffer.limit(b);
+                drain(channel, buffer);
+                i = end;
+            }
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /** The parts of a PPM or PAM header needed to read the samples that follow it. */
+    private static final class Header {
+        private int width;
+        private int height;
+        private int depth;
+        private int maxval;
+    }
+
+    private static Header readHeader(Input in, Path file) throws IOException {
+        Header header = new Header();
+        String magic = in.token();
+        if (magic.equals("P6")) {
+            header.width = Integer.parseInt(in.token());
+            header.height = Integer.parseInt(in.token());
+            header.maxval = Integer.parseInt(in.token());
+            header.depth = 3;
+            // exactly one whitespace character separates the header from the samples
+            in.read();
+        } else if (magic.equals("P7")) {
+            String tupleType = null;
+            for (String key = in.token(); !key.equals("ENDHDR"); key = in.token()) {
+                switch (key) {
+                    case "WIDTH": header.width = Integer.parseInt(in.token()); break;
+                    case "HEIGHT": header.height = Integer.parseInt(in.token()); break;
+                    case "DEPTH": header.depth = Integer.parseInt(in.token()); break;
+                    case "MAXVAL": header.maxval = Integer.parseInt(in.token()); break;
+                    case "TUPLTYPE": tupleType = in.token(); break;
+                    default: throw new IOException("Unknown PAM header field " + key + " in " + file);
+                }
+            }
+            // the rest of the ENDHDR line
+            in.read();
+            if (header.depth < 1 || header.depth > 4
+                    || (tupleType != null && !tupleType.equals(TUPLE_TYPES[header.depth - 1]))) {
+                throw new IOException("Unsupported PAM tuple type " + tupleType + " with depth "
+                        + header.depth + " in " + file);
+            }
+        } else {
+            throw new IOException(file + " is not a binary PPM or PAM image");
+        }
+
+        if (header.width < 1 || header.height < 1) {
+            throw new IOException("Invalid image size " + header.width + "x" + header.height + " in " + file);
+        }
+        if (header.maxval < 1 || header.maxval > 255) {
+            throw new IOException("Unsupported maximum sample value " + header.maxval + " in " + file);
+        }
+        return header;
+    }
+
+    /** Reads a file through a FileChannel in chunks. */
+    private static final class Input implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+        private final Path file;
+
+        private Input(Path file) throws IOException {
+            this.file = file;
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            buffer.flip();
+        }
+
+        /** Makes sure at least n bytes are buffered, unless the file ends first. */
+        private boolean ensure(int n) throws IOException {
+            if (buffer.remaining() >= n) {
+                return true;
+            }
+            buffer.compact();
+            while (buffer.position() < n) {
+                if (channel.read(buffer) < 0) {
+                    break;
+                }
+            }
+            buffer.flip();
+            return buffer.remaining() >= n;
+        }
+
+        /** Returns the next byte, or -1 at the end of the file. */
+        private int read() throws IOException {
+            return ensure(1) ? buffer.get() & 0xFF : -1;
+        }
+
+        /** Returns the next whitespace-separated header token, skipping # comments. */
+        private String token() throws IOException {
+            int c = read();
+            while (c != -1 && (Character.isWhitespace(c) || c == '#')) {
+                if (c == '#') {
+                    while (c != -1 && c != '\n' && c != '\r') {
+                        c = read();
+                    }
+                }
+                c = read();
+            }
+            if (c == -1) {
+                throw new IOException("Unexpected end of header in " + file);
+            }
+
+            StringBuilder token = new StringBuilder();
+            while (c != -1 && !Character.isWhitespace(c)) {
+                token.append((char) c);
+                c = read();
+            }
+            // put back the whitespace that ended the token
+            if (c != -1) {
+                buffer.position(buffer.position() - 1);
+            }
+            return token.toString();
+        }
+
+        /** Reads depth samples per pixel into packed ARGB ints, scaling them to 0-255. */
+        private void readSamples(int[] data, int depth, int maxval) throws IOException {
+            int i = 0;
+            while (i < data.length) {
+                if (!ensure(depth)) {
+                    throw new IOException("Unexpected end of pixel data in " + file);
+                }
+                byte[] bytes = buffer.array();
+                int b = buffer.arrayOffset() + buffer.position();
+                int end = i + Math.min(data.length - i, buffer.remaining() / depth);
+                for (; i < end; i++) {
+                    int first = scale(bytes[b] & 0xFF, maxval);
+                    int argb;
+                    if (depth >= 3) {
+                        int green = scale(bytes[b + 1] & 0xFF, maxval);
+                        int blue = scale(bytes[b + 2] & 0xFF, maxval);
+                        int alpha = depth == 4 ? scale(bytes[b + 3] & 0xFF, maxval) : 0xFF;
+                        argb = alpha << 24 | first << 16 | green << 8 | blue;
+                    } else {
+                        int alpha = depth == 2 ? scale(bytes[b + 1] & 0xFF, maxval) : 0xFF;
+                        argb = alpha << 24 | first << 16 | first << 8 | first;
+                    }
+                    data[i] = argb;
+                    b += depth;
+                }
+                buffer.position(b - buffer.arrayOffset());
+            }
+        }
+
+        private static int scale(int sample, int maxval) {
+            return maxval == 255 ? sample : Math.min(255, (sample * 255 + maxval / 2) / maxval);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
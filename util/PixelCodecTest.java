@@ -0,0 +1,86 @@
+package seamcarving.util;
+
+import edu.princeton.cs.algs4.Picture;
+import org.junit.Test;
+import seamcarving.AStarSeamCarver;
+import seamcarving.PixelBuffer;
+import seamcarving.SeamCarver;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PixelCodecTest {
+    private static Path tempFile(String suffix) throws IOException {
+        Path file = Files.createTempFile("pixelcodec", suffix);
+        file.toFile().deleteOnExit();
+        return file;
+    }
+
+    private static void assertSamePixels(Picture expected, PixelBuffer actual) {
+        assertEquals(expected.width(), actual.width());
+        assertEquals(expected.height(), actual.height());
+        for (int x = 0; x < expected.width(); x++) {
+            for (int y = 0; y < expected.height(); y++) {
+                assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void ppmRoundTripTest() throws IOException {
+        Picture p = new Picture("data/images/6x5.png");
+        Path file = tempFile(".ppm");
+        PixelCodec.writePpm(PixelBuffer.fromPicture(p), file);
+        assertEquals(30, PixelCodec.pixelCount(file));
+        assertSamePixels(p, PixelCodec.read(file));
+    }
+
+    @Test
+    public void pamAndRawRoundTripTest() throws IOException {
+        /* Large enough to span several read chunks */
+        Picture p = PictureUtils.randomPicture(301, 257);
+        PixelBuffer pixels = PixelBuffer.fromPicture(p);
+
+        Path pam = tempFile(".pam");
+        PixelCodec.writePam(pixels, pam);
+        assertSamePixels(p, PixelCodec.read(pam));
+
+        Path raw = tempFile(".raw");
+        PixelCodec.writeRaw(pixels, raw);
+        PixelBuffer read = PixelCodec.readRaw(raw, 301);
+        assertEquals(257, read.height());
+        assertArrayEquals(pixels.data(), read.data());
+    }
+
+    @Test
+    public void carverFromPixelsTest() throws IOException {
+        Picture p = PictureUtils.randomPicture(40, 30);
+        Path file = tempFile(".ppm");
+        PixelCodec.writePpm(PixelBuffer.fromPicture(p), file);
+
+        SeamCarver fromPicture = new AStarSeamCarver(p);
+        AStarSeamCarver fromFile = new AStarSeamCarver(PixelCodec.read(file));
+        assertArrayEquals(fromPicture.findVerticalSeam(), fromFile.findVerticalSeam());
+
+        fromFile.removeVerticalSeam(fromFile.findVerticalSeam());
+        PixelCodec.writePpm(fromFile.pixels(), file);
+        fromPicture.removeVerticalSeam(fromPicture.findVerticalSeam());
+        assertSamePixels(fromPicture.picture(), PixelCodec.read(file));
+    }
+
+    @Test
+    public void supportedExtensionsTest() {
+        assertTrue(PixelCodec.isSupported(Paths.get("frames", "a.ppm")));
+        assertTrue(PixelCodec.isSupported(Paths.get("B.PAM")));
+        assertFalse(PixelCodec.isSupported(Paths.get("c.pnm")));
+        assertFalse(PixelCodec.isSupported(Paths.get("d.pgm")));
+        assertFalse(PixelCodec.isSupported(Paths.get("e.png")));
+    }
+}
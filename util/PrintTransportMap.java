@@ -0,0 +1,38 @@
+package seamcarving.util;
+
+import edu.princeton.cs.algs4.Picture;
+import edu.princeton.cs.algs4.StdOut;
+import seamcarving.TransportMapCarver;
+
+/**
+ *  Removes rows and columns from an image in the order chosen by TransportMapCarver,
+ *  and prints that order and the seam energy it saves over alternating.
+ *
+ *  Usage: PrintTransportMap [image] [rows] [columns] [output]
+ */
+public class PrintTransportMap {
+    private static final String IMAGE_PATH = "data/images/HJoceanSmall.png";
+    private static final int NUM_ROWS = 20;
+    private static final int NUM_COLUMNS = 40;
+
+    public static void main(String[] args) {
+        String path = args.length > 0 ? args[0] : IMAGE_PATH;
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : NUM_ROWS;
+        int columns = args.length > 2 ? Integer.parseInt(args[2]) : NUM_COLUMNS;
+
+        Picture picture = new Picture(path);
+        StdOut.printf("%d-by-%d image, removing %d rows and %d columns\n",
+                      picture.width(), picture.height(), rows, columns);
+
+        TransportMapCarver tm = new TransportMapCarver(picture, rows, columns);
+        StdOut.printf("Order: %s\n", tm.order());
+        StdOut.printf("Optimal order:     total seam energy %.1f\n", tm.optimalEnergy());
+        StdOut.printf("Alternating order: total seam energy %.1f\n", tm.alternatingEnergy());
+        StdOut.printf("Energy saved: %.1f (%.2f%%), in %.3fs\n", tm.energySaved(),
+                      100 * tm.energySaved() / tm.alternatingEnergy(), tm.elapsedTime());
+
+        if (args.length > 3) {
+            tm.picture().save(args[3]);
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package seamcarving.util;
+
+import edu.princeton.cs.algs4.StdOut;
+import seamcarving.PixelBuffer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ *  Generates reproducible test images for benchmarks and load tests, straight into
+ *  PixelBuffers and in parallel, so that even 100-megapixel images take well under
+ *  the time needed to carve them.
+ *
+ *  Every pixel is a function of the seed and its coordinates only, so the same
+ *  arguments always give the same image, whatever the number of threads.
+ *
+ *  Usage: SyntheticImages [width] [height] [seed] [output]
+ */
+public class SyntheticImages {
+    /** The kinds of image that can be generated. */
+    public enum Kind {
+        /** Independent uniformly random colors, like PictureUtils.randomPicture. */
+        NOISE,
+        /** Smooth color gradients with a little grain. */
+        GRADIENT,
+        /**
+         * A textured background with sharp-edged shapes on it, crossed by flat,
+         * meandering vertical and horizontal corridors of low energy.
+         */
+        SCENE
+    }
+
+    private static final int DEFAULT_WIDTH = 4000;
+    private static final int DEFAULT_HEIGHT = 3000;
+    private static final long DEFAULT_SEED = 42;
+
+    // rows generated by each parallel task
+    private static final int ROWS_PER_TASK = 16;
+
+    private static final int SHAPES = 24;
+    private static final int CORRIDORS = 3;
+
+    public static PixelBuffer generate(Kind kind, int width, int height, long seed) {
+        if (kind == null) {
+            throw new NullPointerException("Kind cannot be null.");
+        }
+        switch (kind) {
+            case NOISE: return noise(width, height, seed);
+            case GRADIENT: return gradient(width, height, seed);
+            default: return scene(width, height, seed);
+        }
+    }
+
+    /** Creates an image of independent uniformly random opaque colors. */
+    public static PixelBuffer noise(int width, int height, long seed) {
+        PixelBuffer pixels = new PixelBuffer(width, height);
+        fill(pixels, (x, y) -> 0xFF000000 | (int) hash(seed, x, y) & 0xFFFFFF);
+        return pixels;
+    }
+
+    /** Creates an image that blends smoothly between random colors at its corners. */
+    public static PixelBuffer gradient(int width, int height, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] corners = new int[4];
+        for (int i = 0; i < corners.length; i++) {
+            corners[i] = random.nextInt(1 << 24);
+        }
+        double sx = width > 1 ? 1.0 / (width - 1) : 0;
+        double sy = height > 1 ? 1.0 / (height - 1) : 0;
+
+        PixelBuffer pixels = new PixelBuffer(width, height);
+        fill(pixels, (x, y) -> {
+            int rgb = bilinear(corners[0], corners[1], corners[2], corners[3], x * sx, y * sy);
+            return 0xFF000000 | grain(rgb, hash(seed, x, y), 2);
+        });
+        return pixels;
+    }
+
+    /**
+     * Creates a scene: smooth value noise with fine grain as the background, random
+     * rectangles and discs of solid color on top, and flat corridors running all the
+     * way across the image, which are where seams should go.
+     */
+    public static PixelBuffer scene(int width, int height, long seed) {
+        // everything random except the per-pixel grain is drawn up front, in order
+        SplittableRandom random = new SplittableRandom(seed);
+        int cell = Math.max(8, Math.min(width, height) / 12);
+        int[][] lattice = new int[height / cell + 2][width / cell + 2];
+        for (int[] row : lattice) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] = random.nextInt(1 << 24);
+            }
+        }
+
+        int[][] shapes = new int[SHAPES][];
+        for (int i = 0; i < SHAPES; i++) {
+            int size = Math.max(2, Math.min(width, height) / 8);
+            int w = 1 + random.nextInt(size);
+            int h = 1 + random.nextInt(size);
+            // x, y, width, height, color, 1 for a disc and 0 for a rectangle
+            shapes[i] = new int[]{random.nextInt(width), random.nextInt(height), w, h,
+                                  random.nextInt(1 << 24), random.nextInt(2)};
+        }
+
+        double[][] vertical = corridors(random, width, height);
+        double[][] horizontal = corridors(random, height, width);
+        double halfWidth = Math.max(1, Math.min(width, height) / 100.0);
+        int corridorColor = random.nextInt(1 << 24);
+
+        PixelBuffer pixels = new PixelBuffer(width, height);
+        fill(pixels, (x, y) -> {
+            if (inCorridor(vertical[y], x, halfWidth) || inCorridor(horizontal[x], y, halfWidth)) {
+                return 0xFF000000 | corridorColor;
+            }
+            for (int i = SHAPES - 1; i >= 0; i--) {
+                if (inShape(shapes[i], x, y)) {
+                    return 0xFF000000 | shapes[i][4];
+                }
+            }
+            int rgb = valueNoise(lattice, x, y, cell);
+            return 0xFF000000 | grain(rgb, hash(seed, x, y), 12);
+        });
+        return pixels;
+    }
+
+    /** Computes the color of pixel (x, y). */
+    private interface PixelFunction {
+        int rgb(int x, int y);
+    }
+
+    /** Fills the buffer in parallel, a block of rows at a time. */
+    private static void fill(PixelBuffer pixels, PixelFunction f) {
+        int width = pixels.width();
+        int height = pixels.height();
+        int[] data = pixels.data();
+        int tasks = (height + ROWS_PER_TASK - 1) / ROWS_PER_TASK;
+        IntStream.range(0, tasks).parallel().forEach(t -> {
+            int end = Math.min(height, (t + 1) * ROWS_PER_TASK);
+            for (int y = t * ROWS_PER_TASK; y < end; y++) {
+                int offset = y * width;
+                for (int x = 0; x < width; x++) {
+                    data[offset + x] = f.rgb(x, y);
+                }
+            }
+        });
+    }
+
+    /**
+     * Draws sine-shaped corridors that cross an image along its given length, spread
+     * over a span of the given size, and returns the center of each corridor on each
+     * line, so centers[l][i] is where corridor i crosses line l.
+     */
+    private static double[][] corridors(SplittableRandom random, int span, int length) {
+        double[][] centers = new double[length][CORRIDORS];
+        for (int i = 0; i < CORRIDORS; i++) {
+            double center = (i + 0.5) * span / CORRIDORS;
+            double amplitude = random.nextDouble() * span / (4.0 * CORRIDORS);
+            double period = length / (0.5 + 2 * random.nextDouble());
+            double phase = random.nextDouble() * 2 * Math.PI;
+            for (int l = 0; l < length; l++) {
+                centers[l][i] = center + amplitude * Math.sin(2 * Math.PI * l / period + phase);
+            }
+        }
+        return centers;
+    }
+
+    /** Returns true iff position p is within halfWidth of one of the corridor centers. */
+    private static boolean inCorridor(double[] centers, int p, double halfWidth) {
+        for (double center : centers) {
+            if (Math.abs(p - center) <= halfWidth) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean inShape(int[] shape, int x, int y) {
+        int dx = x - shape[0];
+        int dy = y - shape[1];
+        if (shape[5] == 0) {
+            return dx >= 0 && dx < shape[2] && dy >= 0 && dy < shape[3];
+        }
+        if (Math.abs(dx) > shape[2] || Math.abs(dy) > shape[3]) {
+            return false;
+        }
+        double rx = dx / (double) shape[2];
+        double ry = dy / (double) shape[3];
+        return rx * rx + ry * ry <= 1;
+    }
+
+    /** Interpolates between the random colors of a lattice of cells of the given size. */
+    private static int valueNoise(int[][] lattice, int x, int y, int cell) {
+        int cx = x / cell;
+        int cy = y / cell;
+        double fx = smooth((x - cx * cell) / (double) cell);
+        double fy = smooth((y - cy * cell) / (double) cell);
+        return bilinear(lattice[cy][cx], lattice[cy][cx + 1], lattice[cy + 1][cx], lattice[cy + 1][cx + 1], fx, fy);
+    }
+
+    private static double smooth(double t) {
+        return t * t * (3 - 2 * t);
+    }
+
+    /** Blends four RGB colors channel by channel, with fx and fy between 0 and 1. */
+    private static int bilinear(int topLeft, int topRight, int bottomLeft, int bottomRight, double fx, double fy) {
+        int rgb = 0;
+        for (int shift = 16; shift >= 0; shift -= 8) {
+            double top = (topLeft >> shift & 0xFF) * (1 - fx) + (topRight >> shift & 0xFF) * fx;
+            double bottom = (bottomLeft >> shift & 0xFF) * (1 - fx) + (bottomRight >> shift & 0xFF) * fx;
+            rgb |= (int) (top * (1 - fy) + bottom * fy + 0.5) << shift;
+        }
+        return rgb;
+    }
+
+    /** Adds random noise of up to amount to each channel, clamping to 0-255. */
+    private static int grain(int rgb, long random, int amount) {
+        int result = 0;
+        for (int shift = 16; shift >= 0; shift -= 8) {
+            int noise = (int) ((random >>> (shift + 24)) & 0xFF) % (2 * amount + 1) - amount;
+            int channel = Math.max(0, Math.min(255, (rgb >> shift & 0xFF) + noise));
+            result |= channel << shift;
+        }
+        return result;
+    }
+
+    /** Mixes the seed and coordinates into 64 random bits (the SplitMix64 finalizer). */
+    private static long hash(long seed, int x, int y) {
+        long z = seed + 0x9E3779B97F4A7C15L * (((long) y << 32) ^ (x & 0xFFFFFFFFL) ^ 0x5851F42D4C957F2DL);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int width = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_WIDTH;
+        int height = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_HEIGHT;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_SEED;
+
+        StdOut.printf("Generating %d-by-%d images (%.1f megapixels) with seed %d\n",
+                      width, height, width * (double) height / 1e6, seed);
+        PixelBuffer last = null;
+        for (Kind kind : Kind.values()) {
+            long start = System.nanoTime();
+            last = generate(kind, width, height, seed);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            StdOut.printf("  %-8s %8.3fs, %7.1f megapixels/s\n", kind, seconds,
+                          width * (double) height / 1e6 / seconds);
+        }
+        if (args.length > 3) {
+            Path output = Paths.get(args[3]);
+            if (output.getFileName().toString().toLowerCase().endsWith(".pam")) {
+                PixelCodec.writePam(last, output);
+            } else if (PixelCodec.isSupported(output)) {
+                PixelCodec.writePpm(last, output);
+            } else {
+                last.toPicture().save(output.toFile());
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package seamcarving.util;
+
+import org.junit.Test;
+import seamcarving.PixelBuffer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class SyntheticImagesTest {
+    /** Generates the image with the parallel fill running on a pool of the given size. */
+    private static PixelBuffer generate(SyntheticImages.Kind kind, long seed, int threads)
+            throws InterruptedException, ExecutionException {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.submit(() -> SyntheticImages.generate(kind, 150, 97, seed)).get();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void sameSeedSamePixelsTest() throws InterruptedException, ExecutionException {
+        for (SyntheticImages.Kind kind : SyntheticImages.Kind.values()) {
+            PixelBuffer expected = generate(kind, 7, 1);
+            assertEquals(150, expected.width());
+            assertEquals(97, expected.height());
+            for (int threads = 2; threads <= 4; threads++) {
+                assertArrayEquals(expected.data(), generate(kind, 7, threads).data());
+            }
+            assertArrayEquals(expected.data(), SyntheticImages.generate(kind, 150, 97, 7).data());
+            assertNotEquals(expected.getRGB(75, 48), generate(kind, 8, 1).getRGB(75, 48));
+        }
+    }
+
+    @Test
+    public void writesPamTest() throws IOException {
+        Path file = Files.createTempFile("synthetic", ".pam");
+        file.toFile().deleteOnExit();
+        SyntheticImages.main(new String[]{"40", "30", "7", file.toString()});
+
+        byte[] bytes = Files.readAllBytes(file);
+        assertEquals("P7", new String(bytes, 0, 2, "US-ASCII"));
+        assertArrayEquals(SyntheticImages.scene(40, 30, 7).data(), PixelCodec.read(file).data());
+    }
+}